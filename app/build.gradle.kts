@@ -33,6 +33,17 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    sourceSets {
+        // MigrationTestHelper reads the exported schemas as assets.
+        getByName("androidTest").assets.srcDir("$projectDir/schemas")
+    }
+}
+
+kapt {
+    arguments {
+        // Exported Room schemas, one JSON per version; commit them alongside schema changes.
+        arg("room.schemaLocation", "$projectDir/schemas")
+    }
 }
 
 tasks.withType<org.jetbrains.kotlin.gradle.tasks.KotlinCompile>().configureEach {
@@ -52,6 +63,7 @@ dependencies {
     // Retrofit
     implementation(libs.retrofit)
     implementation(libs.retrofit.gson)
+    implementation(libs.okhttp)
     implementation(libs.gson)
     
     // Glide
@@ -71,6 +83,8 @@ dependencies {
     implementation("androidx.constraintlayout:constraintlayout:2.1.4")
     
     testImplementation(libs.junit)
+    testImplementation(libs.mockwebserver)
     androidTestImplementation(libs.ext.junit)
+    androidTestImplementation(libs.room.testing)
     androidTestImplementation(libs.espresso.core)
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.example.myapplication.adapter;
+
+import android.content.Context;
+import android.os.Debug;
+import android.view.ContextThemeWrapper;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.myapplication.R;
+import com.example.myapplication.database.entity.Message;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+// Same check as MovieAdapterAllocationTest for the chat list: once a message's time label is
+// cached, rebinding it formats nothing and allocates nothing.
+@RunWith(AndroidJUnit4.class)
+public class MessagesAdapterAllocationTest {
+    private static final int CURRENT_USER_ID = 1;
+    private static final int FRIEND_ID = 2;
+    private static final int MESSAGE_COUNT = 60;
+    private static final int HOLDER_COUNT = 12;
+    private static final int ROUNDS = 5;
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        Context target = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context = new ContextThemeWrapper(target, R.style.Theme_MyApplication);
+    }
+
+    @Test
+    public void scrollingRebindsAllocateNothing() {
+        int[] allocations = new int[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            MessagesAdapter adapter = new MessagesAdapter(context, CURRENT_USER_ID);
+            adapter.updateMessages(messages());
+            List<MessagesAdapter.MessageViewHolder> holders = createHolders(adapter, HOLDER_COUNT);
+
+            // The first pass formats and caches every label.
+            bindInTurn(adapter, holders);
+            allocations[0] = countAllocations(() -> {
+                for (int round = 0; round < ROUNDS; round++) {
+                    bindInTurn(adapter, holders);
+                }
+            });
+        });
+        assertEquals(0, allocations[0]);
+    }
+
+    private List<MessagesAdapter.MessageViewHolder> createHolders(MessagesAdapter adapter, int count) {
+        RecyclerView parent = new RecyclerView(context);
+        List<MessagesAdapter.MessageViewHolder> holders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            holders.add(adapter.onCreateViewHolder(parent, 0));
+        }
+        return holders;
+    }
+
+    // Like a scroll: each position goes to the next holder in turn.
+    private static void bindInTurn(MessagesAdapter adapter, List<MessagesAdapter.MessageViewHolder> holders) {
+        for (int position = 0; position < adapter.getItemCount(); position++) {
+            adapter.onBindViewHolder(holders.get(position % holders.size()), position);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static int countAllocations(Runnable work) {
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        try {
+            work.run();
+            return Debug.getThreadAllocCount();
+        } finally {
+            Debug.stopAllocCounting();
+        }
+    }
+
+    private static List<Message> messages() {
+        List<Message> messages = new ArrayList<>(MESSAGE_COUNT);
+        for (int id = 1; id <= MESSAGE_COUNT; id++) {
+            boolean sent = id % 2 == 0;
+            Message message = new Message(sent ? CURRENT_USER_ID : FRIEND_ID, sent ? FRIEND_ID : CURRENT_USER_ID,
+                "Message " + id, id * 60_000L);
+            message.setId(id);
+            messages.add(message);
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.myapplication.adapter;
+
+import android.content.Context;
+import android.os.Debug;
+import android.view.ContextThemeWrapper;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.myapplication.R;
+import com.example.myapplication.database.MovieDatabase;
+import com.example.myapplication.database.MovieStateStore;
+import com.example.myapplication.database.entity.Movie;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+// Binds holders off-screen, so only the adapter's own work is counted; text layout and
+// image decoding on a real scroll happen later, in measure/draw.
+@RunWith(AndroidJUnit4.class)
+public class MovieAdapterAllocationTest {
+    private static final int MOVIE_COUNT = 60;
+    private static final int HOLDER_COUNT = 12;
+    private static final int ROUNDS = 5;
+
+    private Context context;
+    private MovieDatabase database;
+    private MovieStateStore stateStore;
+
+    @Before
+    public void setUp() {
+        Context target = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context = new ContextThemeWrapper(target, R.style.Theme_MyApplication);
+        database = Room.inMemoryDatabaseBuilder(target, MovieDatabase.class).build();
+        stateStore = MovieStateStore.getInstance(database);
+        stateStore.clear();
+    }
+
+    @After
+    public void tearDown() {
+        stateStore.clear();
+        database.close();
+    }
+
+    @Test
+    public void scrollingRebindsAllocateNothing() {
+        int[] allocations = new int[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            // No posters, so Glide stays out of the count; moving a holder to a new poster must load it.
+            List<Movie> movies = movies(false);
+            for (int id = 0; id < MOVIE_COUNT; id += 3) {
+                stateStore.setFavorite(id, true);
+                stateStore.setLiked(id + 1, true);
+            }
+            MovieAdapter adapter = new MovieAdapter(movies, null, stateStore);
+            List<MovieAdapter.MovieViewHolder> holders = createHolders(adapter, HOLDER_COUNT);
+
+            bindInTurn(adapter, holders);
+            allocations[0] = countAllocations(() -> {
+                for (int round = 0; round < ROUNDS; round++) {
+                    bindInTurn(adapter, holders);
+                }
+            });
+        });
+        assertEquals(0, allocations[0]);
+    }
+
+    @Test
+    public void rebindingTheSamePosterAllocatesNothing() {
+        int[] allocations = new int[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            MovieAdapter adapter = new MovieAdapter(movies(true), null, stateStore);
+            List<MovieAdapter.MovieViewHolder> holders = createHolders(adapter, MOVIE_COUNT);
+
+            bindInTurn(adapter, holders);
+            allocations[0] = countAllocations(() -> {
+                for (int round = 0; round < ROUNDS; round++) {
+                    bindInTurn(adapter, holders);
+                }
+            });
+        });
+        assertEquals(0, allocations[0]);
+    }
+
+    private List<MovieAdapter.MovieViewHolder> createHolders(MovieAdapter adapter, int count) {
+        RecyclerView parent = new RecyclerView(context);
+        List<MovieAdapter.MovieViewHolder> holders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            holders.add(adapter.onCreateViewHolder(parent, 0));
+        }
+        return holders;
+    }
+
+    // Like a scroll: each position goes to the next holder in turn.
+    private static void bindInTurn(MovieAdapter adapter, List<MovieAdapter.MovieViewHolder> holders) {
+        for (int position = 0; position < adapter.getItemCount(); position++) {
+            adapter.onBindViewHolder(holders.get(position % holders.size()), position);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static int countAllocations(Runnable work) {
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        try {
+            work.run();
+            return Debug.getThreadAllocCount();
+        } finally {
+            Debug.stopAllocCounting();
+        }
+    }
+
+    private static List<Movie> movies(boolean withPosters) {
+        List<Movie> movies = new ArrayList<>(MOVIE_COUNT);
+        for (int id = 0; id < MOVIE_COUNT; id++) {
+            movies.add(new Movie(id, "Movie " + id, "Overview " + id,
+                withPosters ? "/poster" + id + ".jpg" : null, (id % 100) / 10.0, "2000-01-01", null));
+        }
+        return movies;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.myapplication.database;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.myapplication.database.entity.Movie;
+import com.example.myapplication.database.entity.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// The statements ToggleWriteQueue runs for a tap: cache the movie if absent, then add or remove the row.
+@RunWith(AndroidJUnit4.class)
+public class FavoriteDaoTest {
+    private MovieDatabase database;
+    private int userId;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, MovieDatabase.class).build();
+        userId = (int) database.userDao().insertUser(new User("alice", "alice@example.com", "secret"));
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void unfavoritingACachedMovieRemovesTheRow() {
+        Movie movie = matrix(8.2);
+        database.movieDao().upsertMovie(movie);
+        database.runInTransaction(() -> {
+            database.movieDao().insertMovieIfAbsent(movie);
+            database.favoriteDao().addFavorite(userId, movie.getId());
+        });
+        assertTrue(database.favoriteDao().isFavorite(userId, movie.getId()));
+
+        assertEquals(1, database.favoriteDao().removeFavorite(userId, movie.getId()));
+
+        assertFalse(database.favoriteDao().isFavorite(userId, movie.getId()));
+    }
+
+    @Test
+    public void recachingAMovieKeepsItsFavoriteAndLike() {
+        database.movieDao().upsertMovie(matrix(8.2));
+        database.favoriteDao().addFavorite(userId, 603);
+        database.likeDao().addLike(userId, 603);
+
+        database.movieDao().insertMovieIfAbsent(matrix(8.2));
+        database.movieDao().upsertMovie(matrix(8.4));
+
+        assertEquals(Collections.singletonList(603), database.favoriteDao().getFavoriteMovieIds(userId));
+        assertEquals(Collections.singletonList(603), database.likeDao().getLikedMovieIds(userId));
+        assertEquals(8.4, database.movieDao().getMovieById(603).getVoteAverage(), 0.0);
+    }
+
+    @Test
+    public void repeatedAddsKeepOneRow() {
+        database.movieDao().upsertMovie(matrix(8.2));
+
+        database.favoriteDao().addFavorite(userId, 603);
+        database.favoriteDao().addFavorite(userId, 603);
+        database.likeDao().addLike(userId, 603);
+        database.likeDao().addLike(userId, 603);
+
+        assertEquals(Collections.singletonList(603), database.favoriteDao().getFavoriteMovieIds(userId));
+        assertEquals(1, database.likeDao().isLiked(userId, 603));
+    }
+
+    @Test
+    public void favoriteOfAnUncachedMovieIsSkipped() {
+        database.favoriteDao().addFavorite(userId, 999);
+        database.likeDao().addLike(userId, 999);
+
+        assertTrue(database.favoriteDao().getFavoriteMovieIds(userId).isEmpty());
+        assertTrue(database.likeDao().getLikedMovieIds(userId).isEmpty());
+    }
+
+    private static Movie matrix(double voteAverage) {
+        return new Movie(603, "The Matrix", "A hacker learns the truth", null, voteAverage, "1999-03-31", null);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.myapplication.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.myapplication.database.dao.MessageDao;
+import com.example.myapplication.database.entity.Message;
+import com.example.myapplication.database.entity.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// Keyset paging over a conversation with runs of equal timestamps, plus the query plans, so a
+// rewrite of the cursor that falls back to walking the conversation fails here.
+@RunWith(AndroidJUnit4.class)
+public class MessageDaoTest {
+    private static final int MESSAGE_COUNT = 600;
+    private static final int PAGE_SIZE = 50;
+
+    private MovieDatabase database;
+    private long conversationId;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, MovieDatabase.class).build();
+        int alice = (int) database.userDao().insertUser(new User("alice", "alice@example.com", "secret"));
+        int bob = (int) database.userDao().insertUser(new User("bob", "bob@example.com", "secret"));
+        int carol = (int) database.userDao().insertUser(new User("carol", "carol@example.com", "secret"));
+        conversationId = Message.conversationId(alice, bob);
+        database.runInTransaction(() -> {
+            for (int i = 0; i < MESSAGE_COUNT; i++) {
+                // Three messages per timestamp, so pages split ties and the id tie-break matters.
+                database.messageDao().insertMessage(new Message(i % 2 == 0 ? alice : bob,
+                    i % 2 == 0 ? bob : alice, "message " + i, i / 3));
+                database.messageDao().insertMessage(new Message(alice, carol, "other " + i, i / 3));
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void pagingBackwardsVisitsEveryMessageOnceNewestFirst() {
+        List<Message> all = new ArrayList<>();
+        long beforeTimestamp = Long.MAX_VALUE;
+        int beforeId = Integer.MAX_VALUE;
+        List<Message> page;
+        do {
+            page = database.messageDao().getMessagesBefore(conversationId, beforeTimestamp, beforeId, PAGE_SIZE);
+            all.addAll(page);
+            if (!page.isEmpty()) {
+                Message last = page.get(page.size() - 1);
+                beforeTimestamp = last.getTimestamp();
+                beforeId = last.getId();
+            }
+        } while (page.size() == PAGE_SIZE);
+
+        assertEquals(MESSAGE_COUNT, all.size());
+        for (int i = 1; i < all.size(); i++) {
+            Message newer = all.get(i - 1);
+            Message older = all.get(i);
+            assertEquals(conversationId, older.getConversationId());
+            assertTrue(older.getTimestamp() < newer.getTimestamp()
+                || (older.getTimestamp() == newer.getTimestamp() && older.getId() < newer.getId()));
+        }
+    }
+
+    @Test
+    public void pagingForwardsVisitsEveryMessageOnceOldestFirst() {
+        List<Message> all = new ArrayList<>();
+        long afterTimestamp = Long.MIN_VALUE;
+        int afterId = Integer.MIN_VALUE;
+        List<Message> page;
+        do {
+            page = database.messageDao().getMessagesAfter(conversationId, afterTimestamp, afterId, PAGE_SIZE);
+            all.addAll(page);
+            if (!page.isEmpty()) {
+                Message last = page.get(page.size() - 1);
+                afterTimestamp = last.getTimestamp();
+                afterId = last.getId();
+            }
+        } while (page.size() == PAGE_SIZE);
+
+        assertEquals(MESSAGE_COUNT, all.size());
+        for (int i = 1; i < all.size(); i++) {
+            Message older = all.get(i - 1);
+            Message newer = all.get(i);
+            assertEquals(conversationId, newer.getConversationId());
+            assertTrue(newer.getTimestamp() > older.getTimestamp()
+                || (newer.getTimestamp() == older.getTimestamp() && newer.getId() > older.getId()));
+        }
+    }
+
+    @Test
+    public void pageQueriesSeekTheConversationIndexToTheCursor() {
+        assertSeeks(plan(MessageDao.MESSAGES_BEFORE), "timestamp<?");
+        assertSeeks(plan(MessageDao.MESSAGES_AFTER), "timestamp>?");
+    }
+
+    private static void assertSeeks(String plan, String range) {
+        assertTrue(plan, plan.contains("SEARCH"));
+        assertTrue(plan, plan.contains("index_messages_conversationId_timestamp_id"));
+        assertTrue(plan, plan.contains("conversationId=? AND " + range));
+        assertFalse(plan, plan.contains("SCAN"));
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    // The DAO's SQL with its named parameters bound in order of first use.
+    private String plan(String sql) {
+        StringBuilder plan = new StringBuilder();
+        Object[] args = {conversationId, MESSAGE_COUNT / 6, MESSAGE_COUNT / 2, PAGE_SIZE};
+        try (Cursor cursor = database.query("EXPLAIN QUERY PLAN " + sql, args)) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(detail)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+}
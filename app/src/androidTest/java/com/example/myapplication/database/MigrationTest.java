@@ -0,0 +1,138 @@
+package com.example.myapplication.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.myapplication.database.entity.Message;
+import com.example.myapplication.database.entity.User;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+// Upgrades databases built from the exported schemas in app/schemas and validates each result
+// against the latest one.
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+    private static final String DB_NAME = "migration-test";
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+        InstrumentationRegistry.getInstrumentation(), MovieDatabase.class);
+
+    @Test
+    public void migratesVersion1ToLatest() throws IOException {
+        try (SupportSQLiteDatabase db = helper.createDatabase(DB_NAME, 1)) {
+            db.execSQL("INSERT INTO users (id, username, email, password) VALUES "
+                + "(1, 'Alice', 'Alice@Example.com', 'secret'), (2, 'bob', 'bob@example.com', 'secret'), "
+                + "(3, 'carol', 'carol@example.com', 'secret')");
+            db.execSQL("INSERT INTO movies (id, title, overview, voteAverage) VALUES "
+                + "(603, 'The Matrix', 'A hacker learns the truth', 8.2), (1, 'Alien', 'A crew meets a stowaway', 8.5)");
+            db.execSQL("INSERT INTO favorites (userId, movieId) VALUES (1, 603), (1, 603)");
+            db.execSQL("INSERT INTO likes (userId, movieId) VALUES (2, 1), (2, 1)");
+            db.execSQL("INSERT INTO friends (userId, friendId) VALUES (1, 2), (1, 2)");
+            db.execSQL("INSERT INTO messages (id, senderId, receiverId, content, timestamp) VALUES "
+                + "(1, 1, 2, 'hi', 100), (2, 2, 1, 'hey', 200), (3, 3, 1, 'yo', 150)");
+        }
+
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(DB_NAME, 9, true, Migrations.ALL);
+
+        // 1 -> 2: the FTS index is rebuilt from movies already cached.
+        assertEquals(603, queryInt(db, "SELECT rowid FROM movies_fts WHERE movies_fts MATCH 'hack*'"));
+        assertEquals(1, queryInt(db, "SELECT rowid FROM movies_fts WHERE movies_fts MATCH 'stowaway'"));
+        db.execSQL("INSERT INTO movies_fts(movies_fts) VALUES ('integrity-check')");
+
+        // 3 -> 4 and 7 -> 8: duplicate rows collapse before the unique indexes go on.
+        assertEquals(1, queryInt(db, "SELECT COUNT(*) FROM friends"));
+        assertEquals(1, queryInt(db, "SELECT COUNT(*) FROM favorites"));
+        assertEquals(1, queryInt(db, "SELECT COUNT(*) FROM likes"));
+
+        // 4 -> 5: users is rebuilt with NOCASE columns and keeps its rows and ids.
+        assertEquals(3, queryInt(db, "SELECT COUNT(*) FROM users"));
+        assertEquals(1, queryInt(db, "SELECT id FROM users WHERE email = 'alice@example.com'"));
+        assertEquals(1, queryInt(db, "SELECT id FROM users WHERE username = 'ALICE'"));
+
+        // 5 -> 6: conversationId is backfilled the way Message.conversationId computes it.
+        assertEquals(Message.conversationId(1, 2), queryLong(db, "SELECT conversationId FROM messages WHERE id = 1"));
+        assertEquals(Message.conversationId(1, 2), queryLong(db, "SELECT conversationId FROM messages WHERE id = 2"));
+        assertEquals(Message.conversationId(3, 1), queryLong(db, "SELECT conversationId FROM messages WHERE id = 3"));
+
+        // 6 -> 7: each participant gets an inbox row holding the latest message, nothing unread.
+        try (Cursor cursor = db.query("SELECT userId, otherUserId, lastSenderId, lastMessage, lastTimestamp, "
+            + "unreadCount FROM conversations ORDER BY userId, otherUserId")) {
+            assertConversation(cursor, 1, 2, 2, "hey", 200);
+            assertConversation(cursor, 1, 3, 3, "yo", 150);
+            assertConversation(cursor, 2, 1, 2, "hey", 200);
+            assertConversation(cursor, 3, 1, 3, "yo", 150);
+            assertFalse(cursor.moveToNext());
+        }
+        db.close();
+
+        // The generated database opens the migrated file and reads through the NOCASE email column.
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        MovieDatabase database = Room.databaseBuilder(context, MovieDatabase.class, DB_NAME)
+            .addMigrations(Migrations.ALL)
+            .build();
+        try {
+            User alice = database.userDao().getUserByEmail("ALICE@example.com");
+            assertNotNull(alice);
+            assertEquals(1, alice.getId());
+            assertEquals(1, database.movieDao().searchMovies("matrix*", "matrix*", 10).size());
+        } finally {
+            database.close();
+        }
+    }
+
+    @Test
+    public void migration8To9FoldsLegacyFavourites() throws IOException {
+        try (SupportSQLiteDatabase db = helper.createDatabase(DB_NAME, 8)) {
+            db.execSQL("INSERT INTO users (id, username, email, password) VALUES (1, 'alice', 'alice@example.com', 'secret')");
+            db.execSQL("INSERT INTO movies (id, title, voteAverage) VALUES (603, 'The Matrix', 8.2), (1, 'Alien', 8.5)");
+            db.execSQL("INSERT INTO favorites (userId, movieId) VALUES (1, 603)");
+            db.execSQL("CREATE TABLE user_favourite (id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                + "userId INTEGER NOT NULL, movieId INTEGER NOT NULL)");
+            db.execSQL("INSERT INTO user_favourite (userId, movieId) VALUES (1, 603), (1, 1), (1, 999), (7, 1)");
+        }
+
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(DB_NAME, 9, true, Migrations.MIGRATION_8_9);
+
+        assertEquals(2, queryInt(db, "SELECT COUNT(*) FROM favorites WHERE userId = 1"));
+        assertEquals(1, queryInt(db, "SELECT COUNT(*) FROM favorites WHERE userId = 1 AND movieId = 1"));
+        assertEquals(0, queryInt(db, "SELECT COUNT(*) FROM sqlite_master WHERE name = 'user_favourite'"));
+    }
+
+    private static void assertConversation(Cursor cursor, int userId, int otherUserId, int lastSenderId,
+                                           String lastMessage, long lastTimestamp) {
+        assertTrue(cursor.moveToNext());
+        assertEquals(userId, cursor.getInt(0));
+        assertEquals(otherUserId, cursor.getInt(1));
+        assertEquals(lastSenderId, cursor.getInt(2));
+        assertEquals(lastMessage, cursor.getString(3));
+        assertEquals(lastTimestamp, cursor.getLong(4));
+        assertEquals(0, cursor.getInt(5));
+    }
+
+    private static int queryInt(SupportSQLiteDatabase db, String sql) {
+        return (int) queryLong(db, sql);
+    }
+
+    private static long queryLong(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            assertTrue(sql, cursor.moveToFirst());
+            return cursor.getLong(0);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.myapplication.database;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.myapplication.api.model.MoviePage;
+import com.example.myapplication.database.entity.Movie;
+import com.example.myapplication.database.entity.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class MovieIngestorTest {
+    private MovieDatabase database;
+    private MovieIngestor ingestor;
+    private int userId;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, MovieDatabase.class).build();
+        ingestor = new MovieIngestor(database, DatabaseExecutor.getInstance());
+        userId = (int) database.userDao().insertUser(new User("alice", "alice@example.com", "secret"));
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void reingestedMovieKeepsLikesAndFavorites() {
+        ingestor.ingestNow(page(new Movie(603, "The Matrix", "A hacker learns the truth", null, 8.2, "1999-03-31", null)));
+        database.favoriteDao().addFavorite(userId, 603);
+        database.likeDao().addLike(userId, 603);
+
+        ingestor.ingestNow(page(new Movie(603, "The Matrix", "A hacker learns the truth", null, 8.3, "1999-03-31", null)));
+
+        assertEquals(Collections.singletonList(603), database.favoriteDao().getFavoriteMovieIds(userId));
+        assertEquals(Collections.singletonList(603), database.likeDao().getLikedMovieIds(userId));
+        assertEquals(8.3, database.movieDao().getMovieById(603).getVoteAverage(), 0.0);
+    }
+
+    @Test
+    public void reingestedMovieReplacesItsSearchTokens() {
+        ingestor.ingestNow(page(new Movie(1, "Alien", "A crew meets a stowaway", null, 8.5, null, null)));
+        ingestor.ingestNow(page(
+            new Movie(1, "Alien", "Ripley fights the xenomorph", null, 8.5, null, null),
+            new Movie(2, "Aliens", "The marines return", null, 8.4, null, null)
+        ));
+
+        assertTrue(search("stowaway").isEmpty());
+        assertEquals(1, search("xenomorph").size());
+        assertEquals(2, search("alien").size());
+        // Fails with "database disk image is malformed" if the external-content index drifted.
+        database.getOpenHelper().getWritableDatabase()
+            .execSQL("INSERT INTO movies_fts(movies_fts) VALUES ('integrity-check')");
+    }
+
+    private List<Movie> search(String text) {
+        List<String> tokens = FtsQuery.tokens(text);
+        return database.movieDao().searchMovies(
+            FtsQuery.prefixMatch(tokens), FtsQuery.titlePrefixMatch(tokens), 100);
+    }
+
+    private static MoviePage page(Movie... movies) {
+        MoviePage page = new MoviePage();
+        page.setMovies(Arrays.asList(movies));
+        return page;
+    }
+}
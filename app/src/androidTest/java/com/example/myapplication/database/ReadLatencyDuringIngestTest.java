@@ -0,0 +1,210 @@
+package com.example.myapplication.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.myapplication.api.model.MoviePage;
+import com.example.myapplication.database.entity.Movie;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+// File-backed databases opened through MovieDatabase.builder, so the journal mode, the pool and the
+// per-connection pragmas are the ones the app gets. Latencies are logged, not asserted.
+@RunWith(AndroidJUnit4.class)
+public class ReadLatencyDuringIngestTest {
+    private static final String TAG = "ReadLatencyDuringIngest";
+    private static final int SEED_MOVIES = 2000;
+    private static final int INGEST_PAGES = 200;
+    private static final int PAGE_SIZE = 20;
+    // SQLite's rollback-journal defaults: one connection, so every read waits out an ingest transaction.
+    private static final DatabaseConfig TRUNCATE =
+        new DatabaseConfig(false, DatabaseConfig.Synchronous.FULL, 2 * 1024, 0);
+
+    private Context context;
+    private final List<String> names = new ArrayList<>();
+    private final List<MovieDatabase> databases = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+    }
+
+    @After
+    public void tearDown() {
+        for (MovieDatabase database : databases) {
+            database.close();
+        }
+        for (String name : names) {
+            context.deleteDatabase(name);
+        }
+    }
+
+    @Test
+    public void readConnectionServesQueriesWhileAWriteIsOpen() throws Exception {
+        MovieDatabase database = open("read-during-write", DatabaseConfig.DEFAULT);
+        database.movieDao().upsertMovie(movie(1, 0));
+        CountDownLatch inTransaction = new CountDownLatch(1);
+        CountDownLatch readDone = new CountDownLatch(1);
+        AtomicReference<Throwable> writerError = new AtomicReference<>();
+
+        Thread writer = new Thread(() -> {
+            try {
+                database.runInTransaction(() -> {
+                    database.movieDao().upsertMovie(movie(2, 0));
+                    inTransaction.countDown();
+                    try {
+                        // Holds the primary connection until the reader is done.
+                        assertTrue(readDone.await(10, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+            } catch (Throwable t) {
+                writerError.set(t);
+            }
+        });
+        writer.start();
+        assertTrue(inTransaction.await(10, TimeUnit.SECONDS));
+
+        // SELECTs, so the pool hands out a read connection rather than waiting for the primary.
+        Movie movie = database.movieDao().getMovieById(1);
+        Movie uncommitted = database.movieDao().getMovieById(2);
+        long cacheSize = queryLong(database, "SELECT * FROM pragma_cache_size()");
+        long synchronous = queryLong(database, "SELECT * FROM pragma_synchronous()");
+        readDone.countDown();
+        writer.join();
+
+        assertNull(writerError.get());
+        assertNotNull(movie);
+        assertNull(uncommitted);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            assertEquals(-DatabaseConfig.DEFAULT.getCacheSizeKb(), cacheSize);
+            assertEquals(DatabaseConfig.Synchronous.NORMAL.ordinal(), synchronous);
+        }
+    }
+
+    @Test
+    public void readLatencyDuringIngest() throws Exception {
+        Latency wal = measure("latency-wal", DatabaseConfig.DEFAULT);
+        Latency truncate = measure("latency-truncate", TRUNCATE);
+
+        Log.i(TAG, "WAL " + wal);
+        Log.i(TAG, "TRUNCATE " + truncate);
+        assertTrue(wal.count > 0);
+        assertTrue(truncate.count > 0);
+    }
+
+    private Latency measure(String name, DatabaseConfig config) throws Exception {
+        MovieDatabase database = open(name, config);
+        List<Movie> seed = new ArrayList<>(SEED_MOVIES);
+        for (int id = 0; id < SEED_MOVIES; id++) {
+            seed.add(movie(id, 0));
+        }
+        database.movieDao().upsertMovies(seed);
+
+        MovieIngestor ingestor = new MovieIngestor(database, DatabaseExecutor.getInstance());
+        AtomicReference<Throwable> writerError = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            try {
+                // Half of each page refreshes cached rows, half is new, like paging through popular.
+                for (int page = 0; page < INGEST_PAGES; page++) {
+                    Movie[] movies = new Movie[PAGE_SIZE];
+                    for (int i = 0; i < PAGE_SIZE; i++) {
+                        int id = i % 2 == 0 ? (page * PAGE_SIZE + i) % SEED_MOVIES : SEED_MOVIES + page * PAGE_SIZE + i;
+                        movies[i] = movie(id, page + 1);
+                    }
+                    ingestor.ingestNow(page(movies));
+                }
+            } catch (Throwable t) {
+                writerError.set(t);
+            }
+        });
+
+        long[] samples = new long[64];
+        int count = 0;
+        writer.start();
+        while (writer.isAlive()) {
+            int id = (count * 7919) % SEED_MOVIES;
+            long start = System.nanoTime();
+            if (count % 2 == 0) {
+                database.movieDao().getMovieById(id);
+            } else {
+                database.movieDao().searchMovies("movie*", "movie*", 20);
+            }
+            long elapsed = System.nanoTime() - start;
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = elapsed;
+        }
+        writer.join();
+        assertNull(writerError.get());
+        return new Latency(Arrays.copyOf(samples, count));
+    }
+
+    private MovieDatabase open(String name, DatabaseConfig config) {
+        context.deleteDatabase(name);
+        names.add(name);
+        MovieDatabase database = MovieDatabase.builder(context, name, config).build();
+        databases.add(database);
+        return database;
+    }
+
+    private static long queryLong(MovieDatabase database, String sql) {
+        try (Cursor cursor = database.query(sql, null)) {
+            assertTrue(sql, cursor.moveToFirst());
+            return cursor.getLong(0);
+        }
+    }
+
+    private static Movie movie(int id, int revision) {
+        return new Movie(id, "Movie " + id, "Overview " + id + " revision " + revision, null,
+            (id % 100) / 10.0, "2000-01-01", null);
+    }
+
+    private static MoviePage page(Movie... movies) {
+        MoviePage page = new MoviePage();
+        page.setMovies(Arrays.asList(movies));
+        return page;
+    }
+
+    private static final class Latency {
+        final int count;
+        final long p50Micros;
+        final long p95Micros;
+        final long maxMicros;
+
+        Latency(long[] nanos) {
+            Arrays.sort(nanos);
+            count = nanos.length;
+            p50Micros = count == 0 ? 0 : nanos[count / 2] / 1000;
+            p95Micros = count == 0 ? 0 : nanos[Math.min(count - 1, count * 95 / 100)] / 1000;
+            maxMicros = count == 0 ? 0 : nanos[count - 1] / 1000;
+        }
+
+        @Override
+        public String toString() {
+            return count + " reads, p50 " + p50Micros + " us, p95 " + p95Micros + " us, max " + maxMicros + " us";
+        }
+    }
+}
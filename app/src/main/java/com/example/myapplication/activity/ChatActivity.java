@@ -1,36 +1,51 @@
 package com.example.myapplication.activity;
 
 import android.os.Bundle;
-import android.view.LayoutInflater;
-import android.view.View;
-import android.view.ViewGroup;
 import android.widget.EditText;
 import android.widget.ImageButton;
-import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.myapplication.R;
+import com.example.myapplication.adapter.MessagesAdapter;
+import com.example.myapplication.database.DatabaseExecutor;
 import com.example.myapplication.database.MovieDatabase;
 import com.example.myapplication.database.entity.Message;
 import com.example.myapplication.util.SharedPreferencesHelper;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class ChatActivity extends AppCompatActivity {
+    private static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_DISTANCE = 10;
+    // Upper bound on rows held; scrolling past it drops rows from the far end of the window.
+    private static final int MAX_WINDOW = 300;
+
     private RecyclerView messagesRecyclerView;
+    private LinearLayoutManager layoutManager;
     private MessagesAdapter messagesAdapter;
     private EditText messageEditText;
     private ImageButton sendButton;
     private MovieDatabase database;
+    private DatabaseExecutor dbExecutor;
     private SharedPreferencesHelper prefsHelper;
     private int currentUserId;
     private int friendId;
     private String friendUsername;
+    private long conversationId;
+    private final List<Message> messages = new ArrayList<>();
+    private boolean hasOlder;
+    private boolean hasNewer;
+    private boolean loadingOlder;
+    private boolean loadingNewer;
+    private boolean reloading;
+    private int windowGeneration;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -38,6 +53,7 @@ public class ChatActivity extends AppCompatActivity {
         setContentView(R.layout.activity_chat);
 
         database = MovieDatabase.getInstance(this);
+        dbExecutor = DatabaseExecutor.getInstance();
         prefsHelper = new SharedPreferencesHelper(this);
         currentUserId = prefsHelper.getUserId();
 
@@ -51,18 +67,38 @@ public class ChatActivity extends AppCompatActivity {
         }
 
         setTitle("Chat with " + friendUsername);
+        conversationId = Message.conversationId(currentUserId, friendId);
 
         messagesRecyclerView = findViewById(R.id.messagesRecyclerView);
         messageEditText = findViewById(R.id.messageEditText);
         sendButton = findViewById(R.id.sendButton);
 
-        messagesAdapter = new MessagesAdapter();
-        messagesRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        messagesAdapter = new MessagesAdapter(this, currentUserId);
+        layoutManager = new LinearLayoutManager(this);
+        messagesRecyclerView.setLayoutManager(layoutManager);
         messagesRecyclerView.setAdapter(messagesAdapter);
+        messagesRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy < 0 && layoutManager.findFirstVisibleItemPosition() <= PREFETCH_DISTANCE) {
+                    loadOlder();
+                } else if (dy > 0 && layoutManager.findLastVisibleItemPosition() >= messages.size() - 1 - PREFETCH_DISTANCE) {
+                    loadNewer();
+                }
+            }
+        });
 
         sendButton.setOnClickListener(v -> sendMessage());
 
         loadMessages();
+        database.messageDao().observeLatestMessages(conversationId, PAGE_SIZE)
+            .observe(this, this::onLatestMessages);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        dbExecutor.write(() -> database.messageDao().markConversationRead(currentUserId, conversationId));
     }
 
     private void sendMessage() {
@@ -72,68 +108,143 @@ public class ChatActivity extends AppCompatActivity {
         }
 
         Message message = new Message(currentUserId, friendId, content, System.currentTimeMillis());
-        database.messageDao().insertMessage(message);
         messageEditText.setText("");
-        loadMessages();
+        dbExecutor.write(() -> {
+            message.setId((int) database.messageDao().insertMessage(message));
+            return message;
+        }, this::appendSentMessage);
     }
 
-    private void loadMessages() {
-        List<Message> messages = database.messageDao().getMessagesBetweenUsers(currentUserId, friendId);
-        messagesAdapter.updateMessages(messages);
+    private void appendSentMessage(Message message) {
+        if (reloading || hasNewer || loadingNewer) {
+            // The window is not at the newest row yet; re-read the newest page, which now includes this one.
+            loadMessages();
+            return;
+        }
+        // The observer may already have delivered this row.
+        if (isAfterWindow(message)) {
+            appendAtEnd(Collections.singletonList(message));
+        }
         messagesRecyclerView.scrollToPosition(messages.size() - 1);
     }
 
-    private class MessagesAdapter extends RecyclerView.Adapter<MessagesAdapter.MessageViewHolder> {
-        private List<Message> messages;
-
-        public MessagesAdapter() {
-            this.messages = new ArrayList<>();
+    // Newest page from the observer, newest first. Only rows past the end of the window are appended.
+    private void onLatestMessages(List<Message> latest) {
+        if (latest == null || reloading || hasNewer || loadingNewer) {
+            return;
         }
-
-        public void updateMessages(List<Message> messages) {
-            this.messages = messages;
-            notifyDataSetChanged();
+        int count = 0;
+        while (count < latest.size() && isAfterWindow(latest.get(count))) {
+            count++;
         }
-
-        @Override
-        public MessageViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
-            View view = LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.item_message, parent, false);
-            return new MessageViewHolder(view);
+        if (count == 0) {
+            return;
         }
-
-        @Override
-        public void onBindViewHolder(MessageViewHolder holder, int position) {
-            Message message = messages.get(position);
-            holder.bind(message);
+        if (count == latest.size() && !messages.isEmpty()) {
+            // More arrived than one page holds; there may be a gap, so start from the newest page.
+            loadMessages();
+            return;
+        }
+        boolean atBottom = messages.isEmpty()
+            || layoutManager.findLastVisibleItemPosition() >= messages.size() - 1;
+        List<Message> arrived = new ArrayList<>(latest.subList(0, count));
+        Collections.reverse(arrived);
+        appendAtEnd(arrived);
+        if (atBottom) {
+            messagesRecyclerView.scrollToPosition(messages.size() - 1);
         }
+    }
 
-        @Override
-        public int getItemCount() {
-            return messages != null ? messages.size() : 0;
+    private boolean isAfterWindow(Message message) {
+        if (messages.isEmpty()) {
+            return true;
         }
+        Message last = messages.get(messages.size() - 1);
+        return message.getTimestamp() > last.getTimestamp()
+            || (message.getTimestamp() == last.getTimestamp() && message.getId() > last.getId());
+    }
 
-        class MessageViewHolder extends RecyclerView.ViewHolder {
-            private TextView messageTextView;
-            private TextView timestampTextView;
+    private void appendAtEnd(List<Message> arrived) {
+        int start = messages.size();
+        messages.addAll(arrived);
+        messagesAdapter.notifyItemRangeInserted(start, arrived.size());
+        int excess = messages.size() - MAX_WINDOW;
+        if (excess > 0) {
+            List<Message> dropped = messages.subList(0, excess);
+            messagesAdapter.forgetTimeLabels(dropped);
+            dropped.clear();
+            messagesAdapter.notifyItemRangeRemoved(0, excess);
+            hasOlder = true;
+        }
+    }
 
-            public MessageViewHolder(View itemView) {
-                super(itemView);
-                messageTextView = itemView.findViewById(R.id.messageTextView);
-                timestampTextView = itemView.findViewById(R.id.timestampTextView);
+    // Resets the window to the newest page of the conversation.
+    private void loadMessages() {
+        int generation = ++windowGeneration;
+        reloading = true;
+        loadingOlder = true;
+        dbExecutor.read(() -> database.messageDao().getMessagesBefore(
+            conversationId, Long.MAX_VALUE, Integer.MAX_VALUE, PAGE_SIZE), page -> {
+            if (generation != windowGeneration) {
+                return;
             }
+            reloading = false;
+            loadingOlder = false;
+            loadingNewer = false;
+            Collections.reverse(page);
+            messages.clear();
+            messages.addAll(page);
+            hasOlder = page.size() == PAGE_SIZE;
+            hasNewer = false;
+            messagesAdapter.updateMessages(messages);
+            messagesRecyclerView.scrollToPosition(messages.size() - 1);
+        });
+    }
 
-            public void bind(Message message) {
-                messageTextView.setText(message.getContent());
-                java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("HH:mm", java.util.Locale.getDefault());
-                timestampTextView.setText(sdf.format(new java.util.Date(message.getTimestamp())));
-
-                if (message.getSenderId() == currentUserId) {
-                    itemView.setBackgroundColor(getResources().getColor(android.R.color.holo_blue_light));
-                } else {
-                    itemView.setBackgroundColor(getResources().getColor(android.R.color.darker_gray));
-                }
+    private void loadOlder() {
+        if (loadingOlder || !hasOlder || messages.isEmpty()) {
+            return;
+        }
+        loadingOlder = true;
+        int generation = windowGeneration;
+        Message first = messages.get(0);
+        dbExecutor.read(() -> database.messageDao().getMessagesBefore(
+            conversationId, first.getTimestamp(), first.getId(), PAGE_SIZE), page -> {
+            if (generation != windowGeneration) {
+                return;
+            }
+            loadingOlder = false;
+            hasOlder = page.size() == PAGE_SIZE;
+            Collections.reverse(page);
+            messages.addAll(0, page);
+            messagesAdapter.notifyItemRangeInserted(0, page.size());
+            int excess = messages.size() - MAX_WINDOW;
+            if (excess > 0) {
+                int from = messages.size() - excess;
+                List<Message> dropped = messages.subList(from, messages.size());
+                messagesAdapter.forgetTimeLabels(dropped);
+                dropped.clear();
+                messagesAdapter.notifyItemRangeRemoved(from, excess);
+                hasNewer = true;
             }
+        });
+    }
+
+    private void loadNewer() {
+        if (loadingNewer || !hasNewer || messages.isEmpty()) {
+            return;
         }
+        loadingNewer = true;
+        int generation = windowGeneration;
+        Message last = messages.get(messages.size() - 1);
+        dbExecutor.read(() -> database.messageDao().getMessagesAfter(
+            conversationId, last.getTimestamp(), last.getId(), PAGE_SIZE), page -> {
+            if (generation != windowGeneration) {
+                return;
+            }
+            loadingNewer = false;
+            hasNewer = page.size() == PAGE_SIZE;
+            appendAtEnd(page);
+        });
     }
 }
@@ -11,19 +11,17 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.myapplication.R;
 import com.example.myapplication.adapter.MovieAdapter;
 import com.example.myapplication.database.MovieDatabase;
-import com.example.myapplication.database.entity.Favorite;
-import com.example.myapplication.database.entity.Like;
+import com.example.myapplication.database.MovieStateStore;
+import com.example.myapplication.database.ToggleWriteQueue;
 import com.example.myapplication.database.entity.Movie;
 import com.example.myapplication.util.SharedPreferencesHelper;
 
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-
 public class FavoritesActivity extends AppCompatActivity {
     private RecyclerView favoritesRecyclerView;
     private MovieAdapter movieAdapter;
     private MovieDatabase database;
+    private MovieStateStore stateStore;
+    private ToggleWriteQueue toggleQueue;
     private SharedPreferencesHelper prefsHelper;
     private int currentUserId;
 
@@ -33,6 +31,8 @@ public class FavoritesActivity extends AppCompatActivity {
         setContentView(R.layout.activity_favorites);
 
         database = MovieDatabase.getInstance(this);
+        stateStore = MovieStateStore.getInstance(database);
+        toggleQueue = ToggleWriteQueue.getInstance(this);
         prefsHelper = new SharedPreferencesHelper(this);
         currentUserId = prefsHelper.getUserId();
 
@@ -48,55 +48,50 @@ public class FavoritesActivity extends AppCompatActivity {
 
             @Override
             public void onLikeClick(Movie movie, boolean isLiked) {
-                toggleLike(movie);
+                toggleLike(movie, !isLiked);
             }
 
             @Override
             public void onFavoriteClick(Movie movie, boolean isFavorite) {
-                toggleFavorite(movie);
+                toggleFavorite(movie, !isFavorite);
             }
-        }, currentUserId);
+        }, stateStore);
 
         favoritesRecyclerView.setLayoutManager(new GridLayoutManager(this, 3));
         favoritesRecyclerView.setAdapter(movieAdapter);
 
-        loadFavorites();
+        stateStore.ensureLoaded(currentUserId);
+        // Room re-runs the query off the main thread after favorite writes; delivery stops with the activity.
+        database.favoriteDao().observeFavoriteMovies(currentUserId).observe(this, movieAdapter::updateMovies);
     }
 
-    private void loadFavorites() {
-        List<Movie> favoriteMovies = database.favoriteDao().getFavoriteMovies(currentUserId);
-        movieAdapter.updateMovies(favoriteMovies);
-        Set<Integer> favoriteIds = new HashSet<>();
-        for (Movie favoriteMovie : favoriteMovies) {
-            favoriteIds.add(favoriteMovie.getId());
-        }
-        movieAdapter.updateFavoriteIds(favoriteIds);
+    @Override
+    protected void onStop() {
+        toggleQueue.flush();
+        super.onStop();
     }
 
-    private void toggleLike(Movie movie) {
-        Like existingLike = database.likeDao().getLike(currentUserId, movie.getId());
-        if (existingLike != null) {
-            database.likeDao().deleteLike(existingLike);
-            Toast.makeText(this, "Unliked", Toast.LENGTH_SHORT).show();
-        } else {
-            Like like = new Like(currentUserId, movie.getId());
-            database.likeDao().insertLike(like);
-            Toast.makeText(this, "Liked!", Toast.LENGTH_SHORT).show();
-        }
+    @Override
+    protected void onDestroy() {
+        // Detaching the adapter unregisters it from the shared state store.
+        favoritesRecyclerView.setAdapter(null);
+        super.onDestroy();
     }
 
-    private void toggleFavorite(Movie movie) {
-        Favorite existingFavorite = database.favoriteDao().getFavorite(currentUserId, movie.getId());
-        if (existingFavorite != null) {
-            database.favoriteDao().deleteFavorite(existingFavorite);
-            Toast.makeText(this, "Removed from favorites", Toast.LENGTH_SHORT).show();
-            loadFavorites();
-        } else {
-            // Ensure the movie exists locally so favorites can load after relogin.
-            database.movieDao().insertMovie(movie);
-            Favorite favorite = new Favorite(currentUserId, movie.getId());
-            database.favoriteDao().insertFavorite(favorite);
+    // The state store changes now; the row is written by the queue's next batch.
+    private void toggleLike(Movie movie, boolean liked) {
+        stateStore.setLiked(movie.getId(), liked);
+        toggleQueue.setLiked(currentUserId, movie, liked);
+        Toast.makeText(this, liked ? "Liked!" : "Unliked", Toast.LENGTH_SHORT).show();
+    }
+
+    private void toggleFavorite(Movie movie, boolean added) {
+        stateStore.setFavorite(movie.getId(), added);
+        toggleQueue.setFavorite(currentUserId, movie, added);
+        if (added) {
             Toast.makeText(this, "Added to favorites!", Toast.LENGTH_SHORT).show();
+        } else {
+            Toast.makeText(this, "Removed from favorites", Toast.LENGTH_SHORT).show();
         }
     }
 }
@@ -2,31 +2,58 @@ package com.example.myapplication.activity;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.myapplication.R;
+import com.example.myapplication.database.DatabaseExecutor;
 import com.example.myapplication.database.MovieDatabase;
 import com.example.myapplication.database.entity.Friend;
-import com.example.myapplication.database.entity.User;
+import com.example.myapplication.database.model.UserWithFriendship;
 import com.example.myapplication.util.SharedPreferencesHelper;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class FriendsActivity extends AppCompatActivity {
+    private static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_DISTANCE = 10;
+    private static final long SEARCH_DEBOUNCE_MS = 300;
+
     private RecyclerView friendsRecyclerView;
+    private LinearLayoutManager layoutManager;
+    private EditText userSearchEditText;
     private FriendsAdapter friendsAdapter;
     private MovieDatabase database;
+    private DatabaseExecutor dbExecutor;
     private SharedPreferencesHelper prefsHelper;
     private int currentUserId;
+    private final List<UserWithFriendship> users = new ArrayList<>();
+    private String directoryPrefix = "";
+    private boolean loadingPage;
+    private boolean reachedEnd;
+    // A search lists username matches first, then users from users.get(emailPhaseStart) on match by email only.
+    private boolean searchingEmails;
+    private int emailPhaseStart;
+    private int directoryGeneration;
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private final Runnable debouncedSearch = this::loadFriends;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -34,21 +61,130 @@ public class FriendsActivity extends AppCompatActivity {
         setContentView(R.layout.activity_friends);
 
         database = MovieDatabase.getInstance(this);
+        dbExecutor = DatabaseExecutor.getInstance();
         prefsHelper = new SharedPreferencesHelper(this);
         currentUserId = prefsHelper.getUserId();
 
         friendsRecyclerView = findViewById(R.id.friendsRecyclerView);
+        userSearchEditText = findViewById(R.id.userSearchEditText);
         friendsAdapter = new FriendsAdapter();
-        friendsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        layoutManager = new LinearLayoutManager(this);
+        friendsRecyclerView.setLayoutManager(layoutManager);
         friendsRecyclerView.setAdapter(friendsAdapter);
+        friendsRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition() >= users.size() - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                }
+            }
+        });
+
+        userSearchEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                searchHandler.removeCallbacks(debouncedSearch);
+                searchHandler.postDelayed(debouncedSearch, SEARCH_DEBOUNCE_MS);
+            }
+        });
 
         loadFriends();
+        database.friendDao().observeFriendIds(currentUserId).observe(this, this::onFriendIdsChanged);
     }
 
+    @Override
+    protected void onDestroy() {
+        searchHandler.removeCallbacks(debouncedSearch);
+        super.onDestroy();
+    }
+
+    // Restarts the directory from the first page for the current search prefix.
     private void loadFriends() {
-        List<User> allUsers = database.userDao().getAllUsersExcept(currentUserId);
+        directoryPrefix = userSearchEditText.getText().toString().trim();
+        directoryGeneration++;
+        loadingPage = false;
+        reachedEnd = false;
+        searchingEmails = false;
+        emailPhaseStart = 0;
+        users.clear();
+        friendsAdapter.updateFriends(users, false);
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        if (loadingPage || reachedEnd) {
+            return;
+        }
+        loadingPage = true;
+        int generation = directoryGeneration;
+        String prefix = directoryPrefix;
+        String prefixEnd = prefix + '\uffff';
+        boolean emails = searchingEmails;
+        int phaseStart = emails ? emailPhaseStart : 0;
+        UserWithFriendship last = users.size() > phaseStart ? users.get(users.size() - 1) : null;
+        // A phase starts at the prefix itself: the DAO seeks from the cursor, not from the prefix.
+        String afterKey = last == null ? prefix : emails ? last.getEmail() : last.getUsername();
+        int afterId = last != null ? last.getId() : -1;
+        dbExecutor.read(() -> {
+            if (prefix.isEmpty()) {
+                return database.userDao().getDirectoryPage(currentUserId, afterKey, afterId, PAGE_SIZE);
+            }
+            return emails
+                ? database.userDao().searchEmailPage(currentUserId, prefix, prefixEnd, afterKey, afterId, PAGE_SIZE)
+                : database.userDao().searchUsernamePage(currentUserId, prefixEnd, afterKey, afterId, PAGE_SIZE);
+        }, page -> {
+            if (generation != directoryGeneration) {
+                return;
+            }
+            loadingPage = false;
+            boolean phaseDone = page.size() < PAGE_SIZE;
+            int start = users.size();
+            users.addAll(page);
+            boolean startEmails = phaseDone && !prefix.isEmpty() && !emails;
+            if (startEmails) {
+                searchingEmails = true;
+                emailPhaseStart = users.size();
+            } else {
+                reachedEnd = phaseDone;
+            }
+            if (start == 0) {
+                if (!users.isEmpty() || !startEmails) {
+                    showUsers(users);
+                }
+            } else {
+                friendsAdapter.notifyItemRangeInserted(start, page.size());
+            }
+            if (startEmails) {
+                loadNextPage();
+            }
+        });
+    }
+
+    // Keeps the "Add Friend"/"Message" state of loaded rows in sync with the friends table.
+    private void onFriendIdsChanged(List<Integer> friendIds) {
+        Set<Integer> ids = new HashSet<>(friendIds);
+        for (int i = 0; i < users.size(); i++) {
+            UserWithFriendship user = users.get(i);
+            boolean isFriend = ids.contains(user.getId());
+            if (user.isFriend() != isFriend) {
+                user.setFriend(isFriend);
+                friendsAdapter.notifyItemChanged(i);
+            }
+        }
+    }
+
+    private void showUsers(List<UserWithFriendship> allUsers) {
         TextView emptyTextView = findViewById(R.id.emptyTextView);
-        
+        friendsAdapter.updateFriends(allUsers, false);
+
         if (allUsers.isEmpty()) {
             if (emptyTextView != null) {
                 emptyTextView.setVisibility(android.view.View.VISIBLE);
@@ -59,17 +195,16 @@ public class FriendsActivity extends AppCompatActivity {
                 emptyTextView.setVisibility(android.view.View.GONE);
             }
             friendsRecyclerView.setVisibility(android.view.View.VISIBLE);
-            friendsAdapter.updateFriends(allUsers, false);
         }
     }
 
     private void loadMyFriends() {
-        List<User> friends = database.friendDao().getFriends(currentUserId);
-        friendsAdapter.updateFriends(friends, true);
+        dbExecutor.read(() -> database.friendDao().getFriendsWithFriendship(currentUserId),
+            friends -> friendsAdapter.updateFriends(friends, true));
     }
 
     private class FriendsAdapter extends RecyclerView.Adapter<FriendsAdapter.FriendViewHolder> {
-        private List<User> friends;
+        private List<UserWithFriendship> friends;
         private boolean isFriendsList;
 
         public FriendsAdapter() {
@@ -77,7 +212,7 @@ public class FriendsActivity extends AppCompatActivity {
             this.isFriendsList = false;
         }
 
-        public void updateFriends(List<User> friends, boolean isFriendsList) {
+        public void updateFriends(List<UserWithFriendship> friends, boolean isFriendsList) {
             this.friends = friends;
             this.isFriendsList = isFriendsList;
             notifyDataSetChanged();
@@ -92,7 +227,7 @@ public class FriendsActivity extends AppCompatActivity {
 
         @Override
         public void onBindViewHolder(FriendViewHolder holder, int position) {
-            User friend = friends.get(position);
+            UserWithFriendship friend = friends.get(position);
             holder.bind(friend);
         }
 
@@ -113,13 +248,11 @@ public class FriendsActivity extends AppCompatActivity {
                 actionButton = itemView.findViewById(R.id.actionButton);
             }
 
-            public void bind(User user) {
+            public void bind(UserWithFriendship user) {
                 usernameTextView.setText(user.getUsername());
                 emailTextView.setText(user.getEmail());
 
-                // Check if already a friend
-                Friend existingFriend = database.friendDao().getFriend(currentUserId, user.getId());
-                boolean isFriend = existingFriend != null;
+                boolean isFriend = user.isFriend();
 
                 if (isFriend || isFriendsList) {
                     actionButton.setText("Message");
@@ -133,7 +266,8 @@ public class FriendsActivity extends AppCompatActivity {
                     actionButton.setText("Add Friend");
                     actionButton.setOnClickListener(v -> {
                         Friend friend = new Friend(currentUserId, user.getId());
-                        database.friendDao().insertFriend(friend);
+                        user.setFriend(true);
+                        dbExecutor.write(() -> database.friendDao().insertFriend(friend));
                         Toast.makeText(FriendsActivity.this, "Friend added!", Toast.LENGTH_SHORT).show();
                         actionButton.setText("Message");
                         actionButton.setOnClickListener(v2 -> {
@@ -146,7 +280,7 @@ public class FriendsActivity extends AppCompatActivity {
                 }
 
                 itemView.setOnClickListener(v -> {
-                    if (isFriend || isFriendsList) {
+                    if (user.isFriend() || isFriendsList) {
                         Intent intent = new Intent(FriendsActivity.this, ChatActivity.class);
                         intent.putExtra("friend_id", user.getId());
                         intent.putExtra("friend_username", user.getUsername());
@@ -10,6 +10,7 @@ import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.myapplication.R;
+import com.example.myapplication.database.DatabaseExecutor;
 import com.example.myapplication.database.MovieDatabase;
 import com.example.myapplication.database.entity.User;
 import com.example.myapplication.util.SharedPreferencesHelper;
@@ -67,19 +68,31 @@ public class LoginActivity extends AppCompatActivity {
             return;
         }
 
-        try {
-            User user = database.userDao().login(email, password);
-            if (user != null) {
-                prefsHelper.saveUser(user.getId(), user.getUsername());
-                Toast.makeText(this, "Login successful!", Toast.LENGTH_SHORT).show();
-                startActivity(new Intent(this, MainActivity.class));
-                finish();
-            } else {
-                Toast.makeText(this, "Invalid email or password", Toast.LENGTH_SHORT).show();
+        loginButton.setEnabled(false);
+        DatabaseExecutor dbExecutor = DatabaseExecutor.getInstance();
+        dbExecutor.readExecutor().execute(() -> {
+            try {
+                User user = database.userDao().login(email, password);
+                dbExecutor.postToMain(() -> onLoginResult(user));
+            } catch (Exception e) {
+                e.printStackTrace();
+                dbExecutor.postToMain(() -> {
+                    loginButton.setEnabled(true);
+                    Toast.makeText(this, "Login error: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                });
             }
-        } catch (Exception e) {
-            Toast.makeText(this, "Login error: " + e.getMessage(), Toast.LENGTH_LONG).show();
-            e.printStackTrace();
+        });
+    }
+
+    private void onLoginResult(User user) {
+        loginButton.setEnabled(true);
+        if (user != null) {
+            prefsHelper.saveUser(user.getId(), user.getUsername());
+            Toast.makeText(this, "Login successful!", Toast.LENGTH_SHORT).show();
+            startActivity(new Intent(this, MainActivity.class));
+            finish();
+        } else {
+            Toast.makeText(this, "Invalid email or password", Toast.LENGTH_SHORT).show();
         }
     }
 }
@@ -2,6 +2,10 @@ package com.example.myapplication.activity;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
@@ -10,19 +14,25 @@ import android.widget.Button;
 import android.widget.EditText;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.myapplication.R;
 import com.example.myapplication.adapter.MovieAdapter;
+import com.example.myapplication.api.PageLoader;
 import com.example.myapplication.api.RetrofitClient;
+import com.example.myapplication.api.SearchPager;
 import com.example.myapplication.api.TMDBApiService;
-import com.example.myapplication.api.model.MovieResult;
-import com.example.myapplication.api.model.MovieResponse;
+import com.example.myapplication.api.model.MoviePage;
+import com.example.myapplication.database.DatabaseExecutor;
+import com.example.myapplication.database.FtsQuery;
+import com.example.myapplication.database.MovieIngestor;
+import com.example.myapplication.database.MovieStateStore;
+import com.example.myapplication.database.ToggleWriteQueue;
+import com.example.myapplication.database.SearchResultCache;
 import com.example.myapplication.database.MovieDatabase;
-import com.example.myapplication.database.entity.Favorite;
-import com.example.myapplication.database.entity.Like;
 import com.example.myapplication.database.entity.Movie;
 import com.example.myapplication.util.SharedPreferencesHelper;
 
@@ -36,16 +46,49 @@ import retrofit2.Callback;
 import retrofit2.Response;
 
 public class MainActivity extends AppCompatActivity {
+    private static final int OFFLINE_SEARCH_LIMIT = 100;
+    private static final int POPULAR_PAGE_COUNT = 5;
+    private static final int POPULAR_MAX_CONCURRENT_REQUESTS = 3;
+    private static final long SEARCH_DEBOUNCE_MS = 350;
+    private static final int SEARCH_PREFETCH_DISTANCE = 12;
+    // Only this many search rows are held; rows scrolled far out of view are dropped and
+    // re-read from the movies table, in chunks, when the user scrolls back to them.
+    private static final int SEARCH_WINDOW_ROWS = 300;
+    private static final int SEARCH_WINDOW_CHUNK = 60;
+
     private RecyclerView moviesRecyclerView;
+    private GridLayoutManager layoutManager;
     private MovieAdapter movieAdapter;
     private List<Movie> movies;
     private MovieDatabase database;
+    private DatabaseExecutor dbExecutor;
+    private MovieIngestor movieIngestor;
+    private SearchResultCache searchCache;
+    private MovieStateStore stateStore;
+    private ToggleWriteQueue toggleQueue;
     private SharedPreferencesHelper prefsHelper;
     private int currentUserId;
     private EditText searchEditText;
     private android.widget.Button searchButton;
     private boolean isSearchMode = false;
     private int currentPage = 1;
+    private PageLoader popularLoader;
+    private final Set<Integer> popularIds = new HashSet<>();
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private final Runnable debouncedSearch = () -> runSearchFromInput(false);
+    private Call<MoviePage> searchCall;
+    // Normalized like SearchResultCache keys, so "Matrix" and "matrix " count as the same search.
+    private String searchCallKey;
+    private int searchGeneration;
+    private int shownSearchGeneration;
+    private SearchPager searchPager;
+    private String searchQuery;
+    private int searchTotalResults;
+    // Every result id of the shown search in rank order; movies holds ids from searchWindowStart on.
+    private final List<Integer> searchIds = new ArrayList<>();
+    private final Set<Integer> searchIdSet = new HashSet<>();
+    private int searchWindowStart;
+    private boolean loadingSearchWindow;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -53,6 +96,12 @@ public class MainActivity extends AppCompatActivity {
         setContentView(R.layout.activity_main);
 
         database = MovieDatabase.getInstance(this);
+        dbExecutor = DatabaseExecutor.getInstance();
+        movieIngestor = new MovieIngestor(database, dbExecutor);
+        searchCache = SearchResultCache.getInstance(database);
+        stateStore = MovieStateStore.getInstance(database);
+        toggleQueue = ToggleWriteQueue.getInstance(this);
+        searchPager = new SearchPager(RetrofitClient.getInstance(this).getApiService());
         prefsHelper = new SharedPreferencesHelper(this);
 
         if (!prefsHelper.isLoggedIn()) {
@@ -85,170 +134,386 @@ public class MainActivity extends AppCompatActivity {
 
             @Override
             public void onLikeClick(Movie movie, boolean isLiked) {
-                toggleLike(movie);
+                toggleLike(movie, !isLiked);
             }
 
             @Override
             public void onFavoriteClick(Movie movie, boolean isFavorite) {
-                toggleFavorite(movie);
+                toggleFavorite(movie, !isFavorite);
             }
-        }, currentUserId);
+        }, stateStore);
 
-        moviesRecyclerView.setLayoutManager(new GridLayoutManager(this, 3));
+        layoutManager = new GridLayoutManager(this, 3);
+        moviesRecyclerView.setLayoutManager(layoutManager);
         moviesRecyclerView.setAdapter(movieAdapter);
+        moviesRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (!isSearchMode) {
+                    return;
+                }
+                if (dy > 0) {
+                    maybeLoadNextSearchPage();
+                } else if (dy < 0) {
+                    maybeLoadPreviousSearchRows();
+                }
+            }
+        });
 
         searchButton.setOnClickListener(v -> {
-            String query = searchEditText.getText().toString().trim();
-            if (!query.isEmpty()) {
-                searchMovies(query);
-            } else {
-                loadPopularMovies();
-            }
+            searchHandler.removeCallbacks(debouncedSearch);
+            runSearchFromInput(true);
         });
 
         // Allow search on Enter key
         searchEditText.setOnEditorActionListener((v, actionId, event) -> {
             if (actionId == EditorInfo.IME_ACTION_SEARCH || actionId == EditorInfo.IME_ACTION_DONE) {
-                String query = searchEditText.getText().toString().trim();
-                if (!query.isEmpty()) {
-                    searchMovies(query);
-                } else {
-                    loadPopularMovies();
-                }
+                searchHandler.removeCallbacks(debouncedSearch);
+                runSearchFromInput(true);
                 return true;
             }
             return false;
         });
 
+        // Search as you type once the user pauses
+        searchEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                searchHandler.removeCallbacks(debouncedSearch);
+                searchHandler.postDelayed(debouncedSearch, SEARCH_DEBOUNCE_MS);
+            }
+        });
+
+        stateStore.ensureLoaded(currentUserId);
         loadPopularMovies();
     }
 
+    private void runSearchFromInput(boolean explicit) {
+        String query = searchEditText.getText().toString().trim();
+        if (!query.isEmpty()) {
+            searchMovies(query);
+        } else if (explicit || isSearchMode) {
+            loadPopularMovies();
+        }
+    }
+
     private void loadPopularMovies() {
         isSearchMode = false;
         currentPage = 1;
-        loadMoviesPage(1);
-    }
-
-    private void loadMoviesPage(int page) {
-        RetrofitClient.getInstance().getApiService()
-            .getPopularMovies(TMDBApiService.API_KEY, page)
-            .enqueue(new Callback<MovieResponse>() {
+        cancelPopularLoader();
+        cancelSearchCall();
+        searchPager.cancel();
+        searchGeneration++;
+        searchQuery = null;
+        TMDBApiService apiService = RetrofitClient.getInstance(this).getApiService();
+        PageLoader loader = new PageLoader(
+            page -> apiService.getPopularMovies(TMDBApiService.API_KEY, page),
+            POPULAR_PAGE_COUNT,
+            POPULAR_MAX_CONCURRENT_REQUESTS,
+            new PageLoader.Listener() {
                 @Override
-                public void onResponse(Call<MovieResponse> call, Response<MovieResponse> response) {
-                    if (response.isSuccessful() && response.body() != null) {
-                        List<MovieResult> results = response.body().getResults();
-                        if (page == 1) {
-                            movies.clear();
-                        }
-                        for (MovieResult result : results) {
-                            Movie movie = convertToMovie(result);
-                            database.movieDao().insertMovie(movie);
-                            movies.add(movie);
-                        }
-                        movieAdapter.updateMovies(movies);
-                        refreshFavoriteIds();
-                        
-                        // Load more pages if available (up to 5 pages = ~100 movies)
-                        if (page < 5 && response.body().getTotalPages() > page) {
-                            loadMoviesPage(page + 1);
-                        }
-                    }
+                public void onPage(int page, MoviePage response) {
+                    onPopularPage(page, response);
                 }
 
                 @Override
-                public void onFailure(Call<MovieResponse> call, Throwable t) {
-                    if (page == 1) {
-                        Toast.makeText(MainActivity.this, "Failed to load movies", Toast.LENGTH_SHORT).show();
-                        loadMoviesFromDatabase();
-                    }
+                public void onFirstPageFailed(Throwable t) {
+                    Toast.makeText(MainActivity.this, "Failed to load movies", Toast.LENGTH_SHORT).show();
+                    loadMoviesFromDatabase();
                 }
-            });
+            }
+        );
+        popularLoader = loader;
+        loader.start();
+    }
+
+    // Pages arrive in order and the single writer keeps ingest callbacks in that order too.
+    private void onPopularPage(int page, MoviePage response) {
+        PageLoader loader = popularLoader;
+        movieIngestor.ingest(response, result -> {
+            if (loader != popularLoader) {
+                return;
+            }
+            if (page == 1) {
+                movies.clear();
+                popularIds.clear();
+            }
+            currentPage = page;
+            for (Movie movie : result.getMovies()) {
+                // Popularity shifts between page requests, so a movie can show up on two pages;
+                // the adapter keys rows by movie id and must not see it twice.
+                if (popularIds.add(movie.getId())) {
+                    movies.add(movie);
+                }
+            }
+            movieAdapter.updateMovies(movies);
+        });
+    }
+
+    private void cancelSearchCall() {
+        if (searchCall != null) {
+            searchCall.cancel();
+            searchCall = null;
+            searchCallKey = null;
+        }
+    }
+
+    private void cancelPopularLoader() {
+        if (popularLoader != null) {
+            popularLoader.cancel();
+            popularLoader = null;
+        }
     }
 
     private void searchMovies(String query) {
         isSearchMode = true;
-        RetrofitClient.getInstance().getApiService()
-            .searchMovies(TMDBApiService.API_KEY, query, 1)
-            .enqueue(new Callback<MovieResponse>() {
-                @Override
-                public void onResponse(Call<MovieResponse> call, Response<MovieResponse> response) {
-                    if (response.isSuccessful() && response.body() != null) {
-                        List<MovieResult> results = response.body().getResults();
-                        movies.clear();
-                        for (MovieResult result : results) {
-                            Movie movie = convertToMovie(result);
-                            database.movieDao().insertMovie(movie);
-                            movies.add(movie);
-                        }
-                        movieAdapter.updateMovies(movies);
-                        refreshFavoriteIds();
-                    }
+        cancelPopularLoader();
+        String key = SearchResultCache.normalize(query);
+        if (searchCall != null && key.equals(searchCallKey)) {
+            // Same query already in flight; its response will be rendered.
+            return;
+        }
+        if (searchCall == null && shownSearchGeneration == searchGeneration
+            && searchQuery != null && key.equals(SearchResultCache.normalize(searchQuery))) {
+            // Already showing these results; keep the loaded pages and scroll position.
+            return;
+        }
+        cancelSearchCall();
+        searchPager.cancel();
+        int generation = ++searchGeneration;
+
+        SearchResultCache.CachedSearch cached = searchCache.getFromMemory(query);
+        if (cached != null) {
+            showSearchResults(generation, query, cached);
+            return;
+        }
+        dbExecutor.read(() -> searchCache.load(query), diskCached -> {
+            if (generation != searchGeneration) {
+                return;
+            }
+            if (diskCached != null) {
+                showSearchResults(generation, query, diskCached);
+            } else {
+                fetchSearchResults(query, generation);
+            }
+        });
+    }
+
+    private void fetchSearchResults(String query, int generation) {
+        Call<MoviePage> call = RetrofitClient.getInstance(this).getApiService()
+            .searchMovies(TMDBApiService.API_KEY, query, 1);
+        searchCall = call;
+        searchCallKey = SearchResultCache.normalize(query);
+        call.enqueue(new Callback<MoviePage>() {
+            @Override
+            public void onResponse(Call<MoviePage> call, Response<MoviePage> response) {
+                if (generation != searchGeneration) {
+                    return;
+                }
+                searchCall = null;
+                MoviePage body = response.body();
+                if (response.isSuccessful() && body != null) {
+                    movieIngestor.ingest(body, result -> {
+                        searchCache.put(query, result.getMovies(), body.getPage(),
+                            body.getTotalPages(), body.getTotalResults());
+                        showSearchResults(generation, query, result.getMovies(),
+                            body.getPage(), body.getTotalPages(), body.getTotalResults());
+                    });
                 }
+            }
 
-                @Override
-                public void onFailure(Call<MovieResponse> call, Throwable t) {
-                    Toast.makeText(MainActivity.this, "Search failed", Toast.LENGTH_SHORT).show();
-                    List<Movie> dbMovies = database.movieDao().searchMovies(query);
-                    movies.clear();
-                    movies.addAll(dbMovies);
-                    movieAdapter.updateMovies(movies);
-                    refreshFavoriteIds();
+            @Override
+            public void onFailure(Call<MoviePage> call, Throwable t) {
+                if (call.isCanceled() || generation != searchGeneration) {
+                    return;
                 }
-            });
+                searchCall = null;
+                Toast.makeText(MainActivity.this, "Search failed", Toast.LENGTH_SHORT).show();
+                dbExecutor.read(() -> searchCachedMovies(query),
+                    dbMovies -> showSearchResults(generation, query, dbMovies, 0, 0, dbMovies.size()));
+            }
+        });
     }
 
-    private void loadMoviesFromDatabase() {
+    private void showSearchResults(int generation, String query, SearchResultCache.CachedSearch cached) {
+        showSearchResults(generation, query, cached.getMovies(),
+            cached.getPage(), cached.getTotalPages(), cached.getTotalResults());
+    }
+
+    private void showSearchResults(int generation, String query, List<Movie> results,
+                                   int page, int totalPages, int totalResults) {
+        if (generation != searchGeneration) {
+            return;
+        }
+        searchQuery = query;
+        shownSearchGeneration = generation;
+        searchTotalResults = totalResults;
+        searchPager.reset(query, page, totalPages);
+        searchIds.clear();
+        searchIdSet.clear();
+        searchWindowStart = 0;
+        loadingSearchWindow = false;
         movies.clear();
-        movies.addAll(database.movieDao().getAllMovies());
+        for (Movie movie : results) {
+            if (searchIdSet.add(movie.getId())) {
+                searchIds.add(movie.getId());
+                movies.add(movie);
+            }
+        }
         movieAdapter.updateMovies(movies);
-        refreshFavoriteIds();
     }
 
-    private Movie convertToMovie(MovieResult result) {
-        return new Movie(
-            result.getId(),
-            result.getTitle(),
-            result.getOverview(),
-            result.getPosterPath(),
-            result.getVoteAverage(),
-            result.getReleaseDate(),
-            result.getBackdropPath()
-        );
+    private void maybeLoadNextSearchPage() {
+        if (layoutManager.findLastVisibleItemPosition() < movies.size() - SEARCH_PREFETCH_DISTANCE) {
+            return;
+        }
+        int windowEnd = searchWindowStart + movies.size();
+        if (windowEnd < searchIds.size()) {
+            loadSearchWindow(windowEnd, Math.min(searchIds.size(), windowEnd + SEARCH_WINDOW_CHUNK));
+            return;
+        }
+        if (!searchPager.canLoadMore()) {
+            return;
+        }
+        int generation = searchGeneration;
+        searchPager.loadNext((query, response) ->
+            movieIngestor.ingest(response, result -> appendSearchPage(generation, query, response, result)));
     }
 
-    private void toggleLike(Movie movie) {
-        Like existingLike = database.likeDao().getLike(currentUserId, movie.getId());
-        if (existingLike != null) {
-            database.likeDao().deleteLike(existingLike);
-            Toast.makeText(this, "Unliked", Toast.LENGTH_SHORT).show();
-        } else {
-            Like like = new Like(currentUserId, movie.getId());
-            database.likeDao().insertLike(like);
-            Toast.makeText(this, "Liked!", Toast.LENGTH_SHORT).show();
+    private void maybeLoadPreviousSearchRows() {
+        if (searchWindowStart == 0 || layoutManager.findFirstVisibleItemPosition() > SEARCH_PREFETCH_DISTANCE) {
+            return;
         }
+        loadSearchWindow(Math.max(0, searchWindowStart - SEARCH_WINDOW_CHUNK), searchWindowStart);
     }
 
-    private void toggleFavorite(Movie movie) {
-        Favorite existingFavorite = database.favoriteDao().getFavorite(currentUserId, movie.getId());
-        if (existingFavorite != null) {
-            database.favoriteDao().deleteFavorite(existingFavorite);
-            Toast.makeText(this, "Removed from favorites", Toast.LENGTH_SHORT).show();
-        } else {
-            // Ensure the movie exists locally so favorites can load after relogin.
-            database.movieDao().insertMovie(movie);
-            Favorite favorite = new Favorite(currentUserId, movie.getId());
-            database.favoriteDao().insertFavorite(favorite);
-            Toast.makeText(this, "Added to favorites!", Toast.LENGTH_SHORT).show();
+    // Every search page is ingested before it is shown, so dropped rows come back from the movies table.
+    private void loadSearchWindow(int from, int to) {
+        if (loadingSearchWindow) {
+            return;
         }
+        loadingSearchWindow = true;
+        int generation = searchGeneration;
+        List<Integer> ids = new ArrayList<>(searchIds.subList(from, to));
+        dbExecutor.read(() -> database.movieDao().getMoviesInOrder(ids), rows -> {
+            if (generation != searchGeneration) {
+                return;
+            }
+            loadingSearchWindow = false;
+            if (to == searchWindowStart) {
+                movies.addAll(0, rows);
+                searchWindowStart = from;
+                int excess = movies.size() - SEARCH_WINDOW_ROWS;
+                if (excess > 0) {
+                    movies.subList(movies.size() - excess, movies.size()).clear();
+                }
+            } else if (from == searchWindowStart + movies.size()) {
+                movies.addAll(rows);
+                trimSearchWindowStart();
+            } else {
+                // A page arrived in the meantime and moved the window; the next scroll retries.
+                return;
+            }
+            movieAdapter.updateMovies(movies);
+        });
     }
 
-    private void refreshFavoriteIds() {
-        List<Movie> favoriteMovies = database.favoriteDao().getFavoriteMovies(currentUserId);
-        Set<Integer> favoriteIds = new HashSet<>();
-        for (Movie favoriteMovie : favoriteMovies) {
-            favoriteIds.add(favoriteMovie.getId());
+    // Drops whole grid rows from the top so the cells below keep their columns.
+    private void trimSearchWindowStart() {
+        int excess = movies.size() - SEARCH_WINDOW_ROWS;
+        if (excess <= 0) {
+            return;
         }
-        movieAdapter.updateFavoriteIds(favoriteIds);
+        int span = layoutManager.getSpanCount();
+        int trim = (excess + span - 1) / span * span;
+        movies.subList(0, trim).clear();
+        searchWindowStart += trim;
+    }
+
+    private void appendSearchPage(int generation, String query, MoviePage response, MovieIngestor.Result result) {
+        if (generation != searchGeneration || !query.equals(searchQuery)) {
+            return;
+        }
+        // If the user scrolled back up meanwhile, the new ids are recorded and read in on the way down.
+        boolean atEnd = searchWindowStart + movies.size() == searchIds.size();
+        for (Movie movie : result.getMovies()) {
+            // TMDB occasionally repeats a movie across page boundaries.
+            if (searchIdSet.add(movie.getId())) {
+                searchIds.add(movie.getId());
+                if (atEnd) {
+                    movies.add(movie);
+                }
+            }
+        }
+        if (!atEnd) {
+            return;
+        }
+        trimSearchWindowStart();
+        movieAdapter.updateMovies(movies);
+        if (searchWindowStart == 0) {
+            // The cache replays a search from its first row, so only a complete prefix is stored.
+            searchCache.put(query, movies, response.getPage(), response.getTotalPages(), searchTotalResults);
+        }
+    }
+
+    private void loadMoviesFromDatabase() {
+        dbExecutor.read(() -> database.movieDao().getAllMovies(), dbMovies -> {
+            movies.clear();
+            movies.addAll(dbMovies);
+            movieAdapter.updateMovies(movies);
+        });
+    }
+
+    private List<Movie> searchCachedMovies(String query) {
+        List<String> tokens = FtsQuery.tokens(query);
+        if (tokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return database.movieDao().searchMovies(
+            FtsQuery.prefixMatch(tokens),
+            FtsQuery.titlePrefixMatch(tokens),
+            OFFLINE_SEARCH_LIMIT
+        );
+    }
+
+    // The state store changes now; the row is written by the queue's next batch.
+    private void toggleLike(Movie movie, boolean liked) {
+        stateStore.setLiked(movie.getId(), liked);
+        toggleQueue.setLiked(currentUserId, movie, liked);
+        Toast.makeText(this, liked ? "Liked!" : "Unliked", Toast.LENGTH_SHORT).show();
+    }
+
+    private void toggleFavorite(Movie movie, boolean added) {
+        stateStore.setFavorite(movie.getId(), added);
+        toggleQueue.setFavorite(currentUserId, movie, added);
+        Toast.makeText(this, added ? "Added to favorites!" : "Removed from favorites", Toast.LENGTH_SHORT).show();
+    }
+
+    @Override
+    protected void onStop() {
+        toggleQueue.flush();
+        super.onStop();
+    }
+
+    @Override
+    protected void onDestroy() {
+        searchHandler.removeCallbacks(debouncedSearch);
+        cancelPopularLoader();
+        cancelSearchCall();
+        searchPager.cancel();
+        if (moviesRecyclerView != null) {
+            // Detaching the adapter unregisters it from the shared state store.
+            moviesRecyclerView.setAdapter(null);
+        }
+        super.onDestroy();
     }
 
     @Override
@@ -267,9 +532,16 @@ public class MainActivity extends AppCompatActivity {
             startActivity(new Intent(this, FriendsActivity.class));
             return true;
         } else if (id == R.id.menu_logout) {
-            prefsHelper.logout();
-            startActivity(new Intent(this, LoginActivity.class));
-            finish();
+            // Pending toggles are written under the account that made them before it signs out.
+            toggleQueue.flush(() -> {
+                if (isFinishing()) {
+                    return;
+                }
+                prefsHelper.logout();
+                stateStore.clear();
+                startActivity(new Intent(this, LoginActivity.class));
+                finish();
+            });
             return true;
         }
         return super.onOptionsItemSelected(item);
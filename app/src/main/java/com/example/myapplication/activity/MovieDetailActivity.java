@@ -10,6 +10,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.bumptech.glide.Glide;
 import com.example.myapplication.R;
 import com.example.myapplication.api.TMDBApiService;
+import com.example.myapplication.database.DatabaseExecutor;
 import com.example.myapplication.database.MovieDatabase;
 import com.example.myapplication.database.entity.Favorite;
 import com.example.myapplication.database.entity.Like;
@@ -44,15 +45,19 @@ public class MovieDetailActivity extends AppCompatActivity {
             return;
         }
 
-        movie = database.movieDao().getMovieById(movieId);
-        if (movie == null) {
-            Toast.makeText(this, "Movie not found", Toast.LENGTH_SHORT).show();
-            finish();
-            return;
-        }
-
         initViews();
-        displayMovieDetails();
+        DatabaseExecutor.getInstance().read(() -> database.movieDao().getMovieById(movieId), result -> {
+            if (isDestroyed()) {
+                return;
+            }
+            if (result == null) {
+                Toast.makeText(this, "Movie not found", Toast.LENGTH_SHORT).show();
+                finish();
+                return;
+            }
+            movie = result;
+            displayMovieDetails();
+        });
     }
 
     private void initViews() {
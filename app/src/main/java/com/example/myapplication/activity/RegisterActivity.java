@@ -9,6 +9,7 @@ import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.myapplication.R;
+import com.example.myapplication.database.DatabaseExecutor;
 import com.example.myapplication.database.MovieDatabase;
 import com.example.myapplication.database.entity.User;
 import com.example.myapplication.util.SharedPreferencesHelper;
@@ -63,28 +64,41 @@ public class RegisterActivity extends AppCompatActivity {
             return;
         }
 
-        try {
-            User existingUser = database.userDao().getUserByEmail(email);
-            if (existingUser != null) {
-                Toast.makeText(this, "Email already registered", Toast.LENGTH_SHORT).show();
-                return;
-            }
+        registerButton.setEnabled(false);
+        DatabaseExecutor dbExecutor = DatabaseExecutor.getInstance();
+        dbExecutor.writeExecutor().execute(() -> {
+            try {
+                // Case-insensitive: an address that differs only in case is already registered.
+                User existingUser = database.userDao().getUserByEmail(email);
+                if (existingUser != null) {
+                    dbExecutor.postToMain(() -> onRegisterResult(null, "Email already registered"));
+                    return;
+                }
 
-            User newUser = new User(username, email, password);
-            long userId = database.userDao().insertUser(newUser);
-            
-            if (userId > 0) {
-                newUser.setId((int) userId);
-                prefsHelper.saveUser(newUser.getId(), newUser.getUsername());
-                Toast.makeText(this, "Registration successful!", Toast.LENGTH_SHORT).show();
-                startActivity(new android.content.Intent(this, MainActivity.class));
-                finish();
-            } else {
-                Toast.makeText(this, "Registration failed", Toast.LENGTH_SHORT).show();
+                User newUser = new User(username, email, password);
+                long userId = database.userDao().insertUser(newUser);
+                if (userId > 0) {
+                    newUser.setId((int) userId);
+                    dbExecutor.postToMain(() -> onRegisterResult(newUser, null));
+                } else {
+                    dbExecutor.postToMain(() -> onRegisterResult(null, "Registration failed"));
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                dbExecutor.postToMain(() -> onRegisterResult(null, "Registration error: " + e.getMessage()));
             }
-        } catch (Exception e) {
-            Toast.makeText(this, "Registration error: " + e.getMessage(), Toast.LENGTH_LONG).show();
-            e.printStackTrace();
+        });
+    }
+
+    private void onRegisterResult(User newUser, String error) {
+        registerButton.setEnabled(true);
+        if (newUser == null) {
+            Toast.makeText(this, error, Toast.LENGTH_SHORT).show();
+            return;
         }
+        prefsHelper.saveUser(newUser.getId(), newUser.getUsername());
+        Toast.makeText(this, "Registration successful!", Toast.LENGTH_SHORT).show();
+        startActivity(new android.content.Intent(this, MainActivity.class));
+        finish();
     }
 }
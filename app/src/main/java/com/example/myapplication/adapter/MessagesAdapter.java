@@ -0,0 +1,105 @@
+package com.example.myapplication.adapter;
+
+import android.content.Context;
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.myapplication.R;
+import com.example.myapplication.database.entity.Message;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+public class MessagesAdapter extends RecyclerView.Adapter<MessagesAdapter.MessageViewHolder> {
+    private final int currentUserId;
+    private List<Message> messages;
+    // Bind runs on the main thread only, so one formatter and scratch Date are enough.
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
+    private final Date scratchDate = new Date();
+    private SparseArray<String> timeLabels = new SparseArray<>();
+    private final int sentColor;
+    private final int receivedColor;
+
+    public MessagesAdapter(Context context, int currentUserId) {
+        this.currentUserId = currentUserId;
+        this.messages = new ArrayList<>();
+        sentColor = context.getResources().getColor(android.R.color.holo_blue_light);
+        receivedColor = context.getResources().getColor(android.R.color.darker_gray);
+    }
+
+    private String timeLabel(Message message) {
+        String label = timeLabels.get(message.getId());
+        if (label == null) {
+            scratchDate.setTime(message.getTimestamp());
+            label = timeFormat.format(scratchDate);
+            timeLabels.put(message.getId(), label);
+        }
+        return label;
+    }
+
+    public void updateMessages(List<Message> messages) {
+        this.messages = messages;
+        // Only labels for the messages still listed are kept.
+        SparseArray<String> kept = new SparseArray<>(messages.size());
+        for (Message message : messages) {
+            String label = timeLabels.get(message.getId());
+            if (label != null) {
+                kept.put(message.getId(), label);
+            }
+        }
+        timeLabels = kept;
+        notifyDataSetChanged();
+    }
+
+    // Rows leaving the window take their cached labels with them.
+    public void forgetTimeLabels(List<Message> dropped) {
+        for (Message message : dropped) {
+            timeLabels.remove(message.getId());
+        }
+    }
+
+    @NonNull
+    @Override
+    public MessageViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+            .inflate(R.layout.item_message, parent, false);
+        return new MessageViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull MessageViewHolder holder, int position) {
+        Message message = messages.get(position);
+        holder.bind(message);
+    }
+
+    @Override
+    public int getItemCount() {
+        return messages != null ? messages.size() : 0;
+    }
+
+    class MessageViewHolder extends RecyclerView.ViewHolder {
+        private TextView messageTextView;
+        private TextView timestampTextView;
+
+        public MessageViewHolder(View itemView) {
+            super(itemView);
+            messageTextView = itemView.findViewById(R.id.messageTextView);
+            timestampTextView = itemView.findViewById(R.id.timestampTextView);
+        }
+
+        public void bind(Message message) {
+            messageTextView.setText(message.getContent());
+            timestampTextView.setText(timeLabel(message));
+            itemView.setBackgroundColor(message.getSenderId() == currentUserId ? sentColor : receivedColor);
+        }
+    }
+}
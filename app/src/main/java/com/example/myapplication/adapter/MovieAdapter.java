@@ -1,5 +1,6 @@
 package com.example.myapplication.adapter;
 
+import android.util.SparseArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -8,22 +9,70 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.example.myapplication.R;
 import com.example.myapplication.api.TMDBApiService;
+import com.example.myapplication.database.MovieStateStore;
 import com.example.myapplication.database.entity.Movie;
 
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
+import java.util.Objects;
 
 public class MovieAdapter extends RecyclerView.Adapter<MovieAdapter.MovieViewHolder> {
-    private List<Movie> movies;
+    private static final String PAYLOAD_FAVORITE = "favorite";
+    private static final String PAYLOAD_LIKE = "like";
+
+    // Ratings are 0.0-10.0 in tenths, so every label can be formatted once up front.
+    private static final String[] RATING_LABELS = new String[101];
+
+    static {
+        for (int i = 0; i < RATING_LABELS.length; i++) {
+            RATING_LABELS[i] = String.format("%.1f", i / 10.0);
+        }
+    }
+
+    private static final DiffUtil.ItemCallback<Movie> DIFF_CALLBACK = new DiffUtil.ItemCallback<Movie>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Movie oldItem, @NonNull Movie newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Movie oldItem, @NonNull Movie newItem) {
+            return Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                && Objects.equals(oldItem.getPosterPath(), newItem.getPosterPath())
+                && oldItem.getVoteAverage() == newItem.getVoteAverage();
+        }
+    };
+
+    // Diffs are computed on a background thread; the list is swapped in on the main thread.
+    private final AsyncListDiffer<Movie> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
     private OnMovieClickListener listener;
-    private int currentUserId;
-    private Set<Integer> favoriteIds = new HashSet<>();
+    private final MovieStateStore stateStore;
+    private SparseArray<String> posterUrls = new SparseArray<>();
+    private final MovieStateStore.Listener stateListener = new MovieStateStore.Listener() {
+        @Override
+        public void onFavoriteChanged(int movieId) {
+            notifyMovieChanged(movieId, PAYLOAD_FAVORITE);
+        }
+
+        @Override
+        public void onLikeChanged(int movieId) {
+            notifyMovieChanged(movieId, PAYLOAD_LIKE);
+        }
+
+        @Override
+        public void onStateReloaded() {
+            int count = getItemCount();
+            notifyItemRangeChanged(0, count, PAYLOAD_FAVORITE);
+            notifyItemRangeChanged(0, count, PAYLOAD_LIKE);
+        }
+    };
 
     public interface OnMovieClickListener {
         void onMovieClick(Movie movie);
@@ -31,10 +80,21 @@ public class MovieAdapter extends RecyclerView.Adapter<MovieAdapter.MovieViewHol
         void onFavoriteClick(Movie movie, boolean isFavorite);
     }
 
-    public MovieAdapter(List<Movie> movies, OnMovieClickListener listener, int currentUserId) {
-        this.movies = movies;
+    public MovieAdapter(List<Movie> movies, OnMovieClickListener listener, MovieStateStore stateStore) {
         this.listener = listener;
-        this.currentUserId = currentUserId;
+        this.stateStore = stateStore;
+        setHasStableIds(true);
+        updateMovies(movies);
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        stateStore.addListener(stateListener);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        stateStore.removeListener(stateListener);
     }
 
     @NonNull
@@ -47,32 +107,81 @@ public class MovieAdapter extends RecyclerView.Adapter<MovieAdapter.MovieViewHol
 
     @Override
     public void onBindViewHolder(@NonNull MovieViewHolder holder, int position) {
-        Movie movie = movies.get(position);
+        Movie movie = differ.getCurrentList().get(position);
         holder.bind(movie);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull MovieViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        Movie movie = differ.getCurrentList().get(position);
+        for (Object payload : payloads) {
+            if (PAYLOAD_FAVORITE.equals(payload)) {
+                holder.bindFavorite(movie);
+            } else if (PAYLOAD_LIKE.equals(payload)) {
+                holder.bindLike(movie);
+            }
+        }
+    }
+
     @Override
     public int getItemCount() {
-        return movies != null ? movies.size() : 0;
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).getId();
     }
 
     public void updateMovies(List<Movie> newMovies) {
-        this.movies = newMovies;
-        notifyDataSetChanged();
+        // Callers keep mutating their own list, so hand the differ a snapshot.
+        differ.submitList(newMovies != null ? new ArrayList<>(newMovies) : null, this::retainListedPosterUrls);
     }
 
-    public void updateFavoriteIds(Set<Integer> newFavoriteIds) {
-        favoriteIds = newFavoriteIds != null ? newFavoriteIds : new HashSet<>();
-        notifyDataSetChanged();
+    // Keeps the URL cache no larger than the list on screen.
+    private void retainListedPosterUrls() {
+        List<Movie> current = differ.getCurrentList();
+        SparseArray<String> kept = new SparseArray<>(current.size());
+        for (Movie movie : current) {
+            String url = posterUrls.get(movie.getId());
+            if (url != null) {
+                kept.put(movie.getId(), url);
+            }
+        }
+        posterUrls = kept;
     }
 
-    public void toggleFavoriteId(int movieId) {
-        if (favoriteIds.contains(movieId)) {
-            favoriteIds.remove(movieId);
-        } else {
-            favoriteIds.add(movieId);
+    private static String ratingLabel(double voteAverage) {
+        int tenths = (int) Math.round(voteAverage * 10);
+        return RATING_LABELS[Math.max(0, Math.min(RATING_LABELS.length - 1, tenths))];
+    }
+
+    // Poster URLs are built once per movie id and reused on every later bind.
+    private String posterUrl(Movie movie) {
+        String posterPath = movie.getPosterPath();
+        if (posterPath == null || posterPath.isEmpty()) {
+            return null;
+        }
+        String url = posterUrls.get(movie.getId());
+        if (url == null || !url.endsWith(posterPath)) {
+            url = TMDBApiService.IMAGE_BASE_URL + posterPath;
+            posterUrls.put(movie.getId(), url);
+        }
+        return url;
+    }
+
+    private void notifyMovieChanged(int movieId, String payload) {
+        List<Movie> current = differ.getCurrentList();
+        for (int i = 0; i < current.size(); i++) {
+            if (current.get(i).getId() == movieId) {
+                notifyItemChanged(i, payload);
+                return;
+            }
         }
-        notifyDataSetChanged();
     }
 
     class MovieViewHolder extends RecyclerView.ViewHolder {
@@ -82,6 +191,9 @@ public class MovieAdapter extends RecyclerView.Adapter<MovieAdapter.MovieViewHol
         private ImageButton likeImageView;
         private ImageButton favoriteImageView;
 
+        private Movie boundMovie;
+        private String boundPosterUrl;
+
         public MovieViewHolder(@NonNull View itemView) {
             super(itemView);
             posterImageView = itemView.findViewById(R.id.posterImageView);
@@ -89,44 +201,58 @@ public class MovieAdapter extends RecyclerView.Adapter<MovieAdapter.MovieViewHol
             ratingTextView = itemView.findViewById(R.id.ratingTextView);
             likeImageView = itemView.findViewById(R.id.likeImageView);
             favoriteImageView = itemView.findViewById(R.id.favoriteImageView);
-        }
-
-        public void bind(Movie movie) {
-            titleTextView.setText(movie.getTitle());
-            ratingTextView.setText(String.format("%.1f", movie.getVoteAverage()));
-            boolean isFavorite = favoriteIds.contains(movie.getId());
-            favoriteImageView.setImageResource(
-                isFavorite
-                    ? android.R.drawable.btn_star_big_on
-                    : android.R.drawable.btn_star_big_off
-            );
-
-            if (movie.getPosterPath() != null && !movie.getPosterPath().isEmpty()) {
-                String imageUrl = TMDBApiService.IMAGE_BASE_URL + movie.getPosterPath();
-                Glide.with(itemView.getContext())
-                    .load(imageUrl)
-                    .placeholder(R.drawable.ic_launcher_background)
-                    .into(posterImageView);
-            }
 
+            // Listeners are created once per holder and read whatever movie is bound now.
             itemView.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onMovieClick(movie);
+                if (listener != null && boundMovie != null) {
+                    listener.onMovieClick(boundMovie);
                 }
             });
 
+            // The adapter only reports taps; the activity updates the store and queues the write.
             likeImageView.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onLikeClick(movie, false);
+                if (listener != null && boundMovie != null) {
+                    listener.onLikeClick(boundMovie, stateStore.isLiked(boundMovie.getId()));
                 }
             });
 
             favoriteImageView.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onFavoriteClick(movie, isFavorite);
-                    toggleFavoriteId(movie.getId());
+                if (listener != null && boundMovie != null) {
+                    listener.onFavoriteClick(boundMovie, stateStore.isFavorite(boundMovie.getId()));
                 }
             });
         }
+
+        public void bind(Movie movie) {
+            boundMovie = movie;
+            titleTextView.setText(movie.getTitle());
+            ratingTextView.setText(ratingLabel(movie.getVoteAverage()));
+            bindFavorite(movie);
+            bindLike(movie);
+
+            String posterUrl = posterUrl(movie);
+            if (posterUrl == null) {
+                if (boundPosterUrl != null) {
+                    Glide.with(itemView.getContext()).clear(posterImageView);
+                    posterImageView.setImageResource(R.drawable.ic_launcher_background);
+                }
+            } else if (!posterUrl.equals(boundPosterUrl)) {
+                Glide.with(itemView.getContext())
+                    .load(posterUrl)
+                    .placeholder(R.drawable.ic_launcher_background)
+                    .into(posterImageView);
+            }
+            boundPosterUrl = posterUrl;
+        }
+
+        // The stars are one level-list each (R.drawable.star_toggle); switching levels reuses the
+        // inflated drawable where setImageResource would load a new one on every bind.
+        void bindFavorite(Movie movie) {
+            favoriteImageView.setImageLevel(stateStore.isFavorite(movie.getId()) ? 1 : 0);
+        }
+
+        void bindLike(Movie movie) {
+            likeImageView.setImageLevel(stateStore.isLiked(movie.getId()) ? 1 : 0);
+        }
     }
 }
@@ -0,0 +1,98 @@
+package com.example.myapplication.api;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.CacheControl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+public final class HttpCachePolicy {
+    static final int POPULAR_MAX_AGE_SECONDS = 10 * 60;
+    static final int SEARCH_MAX_AGE_SECONDS = 30 * 60;
+    static final int MAX_STALE_DAYS = 7;
+
+    private HttpCachePolicy() {
+    }
+
+    /**
+     * Gives TMDB responses a freshness lifetime when the server sends none. ETag and
+     * Last-Modified are left untouched, so OkHttp revalidates with a conditional GET once
+     * the copy is stale.
+     */
+    public static Interceptor freshness() {
+        return chain -> {
+            Request request = chain.request();
+            Response response = chain.proceed(request);
+            int maxAge = maxAgeFor(request);
+            if (maxAge <= 0 || !"GET".equals(request.method()) || !response.isSuccessful()) {
+                return response;
+            }
+            String cacheControl = response.header("Cache-Control");
+            if (cacheControl != null && !cacheControl.isEmpty()) {
+                return response;
+            }
+            return response.newBuilder()
+                .removeHeader("Pragma")
+                .header("Cache-Control", "public, max-age=" + maxAge)
+                .build();
+        };
+    }
+
+    // Serves a stale cached copy when the network is down or TMDB returns a 5xx.
+    public static Interceptor staleIfError() {
+        return chain -> {
+            Request request = chain.request();
+            if (maxAgeFor(request) <= 0) {
+                return chain.proceed(request);
+            }
+            IOException failure;
+            try {
+                Response response = chain.proceed(request);
+                if (response.code() < 500) {
+                    return response;
+                }
+                Response stale = proceedFromCache(chain, request);
+                if (stale == null) {
+                    return response;
+                }
+                response.close();
+                return stale;
+            } catch (IOException e) {
+                failure = e;
+            }
+            Response stale = proceedFromCache(chain, request);
+            if (stale == null) {
+                throw failure;
+            }
+            return stale;
+        };
+    }
+
+    private static Response proceedFromCache(Interceptor.Chain chain, Request request) throws IOException {
+        Request cacheOnly = request.newBuilder()
+            .cacheControl(new CacheControl.Builder()
+                .onlyIfCached()
+                .maxStale(MAX_STALE_DAYS, TimeUnit.DAYS)
+                .build())
+            .build();
+        Response response = chain.proceed(cacheOnly);
+        if (response.code() == 504) {
+            response.close();
+            return null;
+        }
+        return response;
+    }
+
+    static int maxAgeFor(Request request) {
+        String path = request.url().encodedPath();
+        if (path.endsWith("/movie/popular")) {
+            return POPULAR_MAX_AGE_SECONDS;
+        }
+        if (path.endsWith("/search/movie")) {
+            return SEARCH_MAX_AGE_SECONDS;
+        }
+        return 0;
+    }
+}
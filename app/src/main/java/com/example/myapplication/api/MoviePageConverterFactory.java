@@ -0,0 +1,138 @@
+package com.example.myapplication.api;
+
+import com.example.myapplication.api.model.MoviePage;
+import com.example.myapplication.database.entity.Movie;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Decodes TMDB list responses element by element from the response stream into Movie
+ * rows, skipping the MovieResponse/MovieResult object graph entirely.
+ */
+public final class MoviePageConverterFactory extends Converter.Factory {
+    private static final int TMDB_PAGE_SIZE = 20;
+
+    public static MoviePageConverterFactory create() {
+        return new MoviePageConverterFactory();
+    }
+
+    private MoviePageConverterFactory() {
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        if (type != MoviePage.class) {
+            return null;
+        }
+        return (Converter<ResponseBody, MoviePage>) body -> {
+            try (JsonReader reader = new JsonReader(body.charStream())) {
+                return readPage(reader);
+            } finally {
+                body.close();
+            }
+        };
+    }
+
+    public static MoviePage readPage(JsonReader in) throws IOException {
+        MoviePage page = new MoviePage();
+        List<Movie> movies = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "page":
+                    page.setPage(in.nextInt());
+                    break;
+                case "total_pages":
+                    page.setTotalPages(in.nextInt());
+                    break;
+                case "total_results":
+                    page.setTotalResults(in.nextInt());
+                    break;
+                case "results":
+                    movies = readMovies(in);
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        page.setMovies(movies != null ? movies : new ArrayList<>());
+        return page;
+    }
+
+    private static List<Movie> readMovies(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return new ArrayList<>();
+        }
+        List<Movie> movies = new ArrayList<>(TMDB_PAGE_SIZE);
+        in.beginArray();
+        while (in.hasNext()) {
+            movies.add(readMovie(in));
+        }
+        in.endArray();
+        return movies;
+    }
+
+    private static Movie readMovie(JsonReader in) throws IOException {
+        Movie movie = new Movie();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    movie.setId(in.nextInt());
+                    break;
+                case "title":
+                    movie.setTitle(nextStringOrNull(in));
+                    break;
+                case "overview":
+                    movie.setOverview(nextStringOrNull(in));
+                    break;
+                case "poster_path":
+                    movie.setPosterPath(nextStringOrNull(in));
+                    break;
+                case "vote_average":
+                    movie.setVoteAverage(nextDoubleOrZero(in));
+                    break;
+                case "release_date":
+                    movie.setReleaseDate(nextStringOrNull(in));
+                    break;
+                case "backdrop_path":
+                    movie.setBackdropPath(nextStringOrNull(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return movie;
+    }
+
+    static String nextStringOrNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    static double nextDoubleOrZero(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextDouble();
+    }
+}
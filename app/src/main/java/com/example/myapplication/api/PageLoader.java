@@ -0,0 +1,124 @@
+package com.example.myapplication.api;
+
+import com.example.myapplication.api.model.MoviePage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Fetches pages 1..maxPages concurrently (at most maxConcurrent in flight) and
+ * hands them to the listener strictly in page order. Callbacks run on the main thread.
+ */
+public class PageLoader {
+    private final PageRequest request;
+    private final int maxPages;
+    private final int maxConcurrent;
+    private final Listener listener;
+
+    private final MoviePage[] arrived;
+    private final boolean[] done;
+    private final Deque<Integer> pending = new ArrayDeque<>();
+    private final List<Call<MoviePage>> inFlight = new ArrayList<>();
+    private int nextToDeliver = 1;
+    private int lastPage;
+    private boolean cancelled;
+
+    public interface PageRequest {
+        Call<MoviePage> create(int page);
+    }
+
+    public interface Listener {
+        void onPage(int page, MoviePage response);
+        void onFirstPageFailed(Throwable t);
+    }
+
+    public PageLoader(PageRequest request, int maxPages, int maxConcurrent, Listener listener) {
+        this.request = request;
+        this.maxPages = maxPages;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.listener = listener;
+        this.arrived = new MoviePage[maxPages + 1];
+        this.done = new boolean[maxPages + 1];
+        this.lastPage = maxPages;
+    }
+
+    public void start() {
+        for (int page = 1; page <= maxPages; page++) {
+            pending.add(page);
+        }
+        fill();
+    }
+
+    public void cancel() {
+        cancelled = true;
+        pending.clear();
+        for (Call<MoviePage> call : inFlight) {
+            call.cancel();
+        }
+        inFlight.clear();
+    }
+
+    private void fill() {
+        while (!cancelled && inFlight.size() < maxConcurrent && !pending.isEmpty()) {
+            int page = pending.poll();
+            if (page > lastPage) {
+                continue;
+            }
+            Call<MoviePage> call = request.create(page);
+            inFlight.add(call);
+            call.enqueue(new Callback<MoviePage>() {
+                @Override
+                public void onResponse(Call<MoviePage> call, Response<MoviePage> response) {
+                    MoviePage body = response.isSuccessful() ? response.body() : null;
+                    if (body != null && body.getTotalPages() > 0) {
+                        lastPage = Math.min(lastPage, body.getTotalPages());
+                    }
+                    if (body == null && page == 1) {
+                        onFinished(call, page, null, new IllegalStateException("HTTP " + response.code()));
+                    } else {
+                        onFinished(call, page, body, null);
+                    }
+                }
+
+                @Override
+                public void onFailure(Call<MoviePage> call, Throwable t) {
+                    onFinished(call, page, null, t);
+                }
+            });
+        }
+    }
+
+    private void onFinished(Call<MoviePage> call, int page, MoviePage body, Throwable error) {
+        if (cancelled) {
+            return;
+        }
+        inFlight.remove(call);
+        if (page == 1 && error != null) {
+            cancel();
+            listener.onFirstPageFailed(error);
+            return;
+        }
+        arrived[page] = body;
+        done[page] = true;
+        deliver();
+        fill();
+    }
+
+    // Later pages wait until every earlier page has been delivered so rank order is kept.
+    private void deliver() {
+        while (!cancelled && nextToDeliver <= lastPage && done[nextToDeliver]) {
+            MoviePage response = arrived[nextToDeliver];
+            arrived[nextToDeliver] = null;
+            if (response != null) {
+                listener.onPage(nextToDeliver, response);
+            }
+            nextToDeliver++;
+        }
+    }
+}
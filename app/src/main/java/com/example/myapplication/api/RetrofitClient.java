@@ -1,23 +1,32 @@
 package com.example.myapplication.api;
 
+import android.content.Context;
+
+import java.io.File;
+
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
 public class RetrofitClient {
+    private static final String CACHE_DIR = "tmdb_http_cache";
+    private static final long CACHE_SIZE_BYTES = 20L * 1024 * 1024;
+
     private static RetrofitClient instance;
     private TMDBApiService apiService;
 
-    private RetrofitClient() {
-        Retrofit retrofit = new Retrofit.Builder()
-            .baseUrl(TMDBApiService.BASE_URL)
-            .addConverterFactory(GsonConverterFactory.create())
-            .build();
-        apiService = retrofit.create(TMDBApiService.class);
+    private RetrofitClient(Context context) {
+        File cacheDir = new File(context.getApplicationContext().getCacheDir(), CACHE_DIR);
+        apiService = createApiService(TMDBApiService.BASE_URL, createHttpClient(cacheDir, CACHE_SIZE_BYTES));
     }
 
-    public static synchronized RetrofitClient getInstance() {
+    public static synchronized RetrofitClient getInstance(Context context) {
         if (instance == null) {
-            instance = new RetrofitClient();
+            if (context == null) {
+                throw new IllegalStateException("Context cannot be null");
+            }
+            instance = new RetrofitClient(context);
         }
         return instance;
     }
@@ -25,4 +34,23 @@ public class RetrofitClient {
     public TMDBApiService getApiService() {
         return apiService;
     }
+
+    // Exposed separately so the cache behaviour can be exercised against a local server.
+    public static OkHttpClient createHttpClient(File cacheDir, long cacheSizeBytes) {
+        return new OkHttpClient.Builder()
+            .cache(new Cache(cacheDir, cacheSizeBytes))
+            .addInterceptor(HttpCachePolicy.staleIfError())
+            .addNetworkInterceptor(HttpCachePolicy.freshness())
+            .build();
+    }
+
+    public static TMDBApiService createApiService(String baseUrl, OkHttpClient client) {
+        Retrofit retrofit = new Retrofit.Builder()
+            .baseUrl(baseUrl)
+            .client(client)
+            .addConverterFactory(MoviePageConverterFactory.create())
+            .addConverterFactory(GsonConverterFactory.create())
+            .build();
+        return retrofit.create(TMDBApiService.class);
+    }
 }
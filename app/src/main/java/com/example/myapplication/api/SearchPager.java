@@ -0,0 +1,81 @@
+package com.example.myapplication.api;
+
+import com.example.myapplication.api.model.MoviePage;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Loads the following pages of a search result one at a time. At most one request is
+ * outstanding per query, and a new query drops whatever the previous one had in flight.
+ * Callbacks run on the main thread.
+ */
+public class SearchPager {
+    private final TMDBApiService apiService;
+
+    private String query;
+    private int loadedPage;
+    private int totalPages;
+    private Call<MoviePage> call;
+
+    public interface Listener {
+        void onPage(String query, MoviePage response);
+    }
+
+    public SearchPager(TMDBApiService apiService) {
+        this.apiService = apiService;
+    }
+
+    public void reset(String query, int loadedPage, int totalPages) {
+        cancel();
+        this.query = query;
+        this.loadedPage = loadedPage;
+        this.totalPages = totalPages;
+    }
+
+    public boolean canLoadMore() {
+        return query != null && call == null && loadedPage < totalPages;
+    }
+
+    public void loadNext(Listener listener) {
+        if (!canLoadMore()) {
+            return;
+        }
+        String pageQuery = query;
+        int page = loadedPage + 1;
+        Call<MoviePage> pageCall = apiService.searchMovies(TMDBApiService.API_KEY, pageQuery, page);
+        call = pageCall;
+        pageCall.enqueue(new Callback<MoviePage>() {
+            @Override
+            public void onResponse(Call<MoviePage> c, Response<MoviePage> response) {
+                if (pageCall != call) {
+                    return;
+                }
+                call = null;
+                MoviePage body = response.body();
+                if (response.isSuccessful() && body != null) {
+                    loadedPage = page;
+                    totalPages = body.getTotalPages();
+                    listener.onPage(pageQuery, body);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<MoviePage> c, Throwable t) {
+                if (pageCall == call) {
+                    // Leave loadedPage as is so the next scroll retries this page.
+                    call = null;
+                }
+            }
+        });
+    }
+
+    public void cancel() {
+        if (call != null) {
+            call.cancel();
+            call = null;
+        }
+        query = null;
+    }
+}
@@ -1,6 +1,6 @@
 package com.example.myapplication.api;
 
-import com.example.myapplication.api.model.MovieResponse;
+import com.example.myapplication.api.model.MoviePage;
 
 import retrofit2.Call;
 import retrofit2.http.GET;
@@ -12,13 +12,13 @@ public interface TMDBApiService {
     String IMAGE_BASE_URL = "https://image.tmdb.org/t/p/w500";
 
     @GET("movie/popular")
-    Call<MovieResponse> getPopularMovies(
+    Call<MoviePage> getPopularMovies(
         @Query("api_key") String apiKey,
         @Query("page") int page
     );
 
     @GET("search/movie")
-    Call<MovieResponse> searchMovies(
+    Call<MoviePage> searchMovies(
         @Query("api_key") String apiKey,
         @Query("query") String query,
         @Query("page") int page
@@ -0,0 +1,45 @@
+package com.example.myapplication.api.model;
+
+import com.example.myapplication.database.entity.Movie;
+
+import java.util.List;
+
+// One page of TMDB results decoded straight into Movie rows by MoviePageConverterFactory.
+public class MoviePage {
+    private List<Movie> movies;
+    private int page;
+    private int totalPages;
+    private int totalResults;
+
+    public List<Movie> getMovies() {
+        return movies;
+    }
+
+    public void setMovies(List<Movie> movies) {
+        this.movies = movies;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    public void setTotalPages(int totalPages) {
+        this.totalPages = totalPages;
+    }
+
+    public int getTotalResults() {
+        return totalResults;
+    }
+
+    public void setTotalResults(int totalResults) {
+        this.totalResults = totalResults;
+    }
+}
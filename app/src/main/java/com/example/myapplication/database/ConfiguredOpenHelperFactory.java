@@ -0,0 +1,70 @@
+package com.example.myapplication.database;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+
+// Hooks DatabaseConfig into onConfigure, which runs before Room migrates or validates the schema
+// and before the pool opens any read connection.
+final class ConfiguredOpenHelperFactory implements SupportSQLiteOpenHelper.Factory {
+    private final SupportSQLiteOpenHelper.Factory delegate;
+    private final DatabaseConfig config;
+
+    ConfiguredOpenHelperFactory(SupportSQLiteOpenHelper.Factory delegate, DatabaseConfig config) {
+        this.delegate = delegate;
+        this.config = config;
+    }
+
+    @NonNull
+    @Override
+    public SupportSQLiteOpenHelper create(@NonNull SupportSQLiteOpenHelper.Configuration configuration) {
+        return delegate.create(SupportSQLiteOpenHelper.Configuration.builder(configuration.context)
+            .name(configuration.name)
+            .callback(new ConfiguringCallback(configuration.callback, config))
+            .noBackupDirectory(configuration.useNoBackupDirectory)
+            .allowDataLossOnRecovery(configuration.allowDataLossOnRecovery)
+            .build());
+    }
+
+    private static final class ConfiguringCallback extends SupportSQLiteOpenHelper.Callback {
+        private final SupportSQLiteOpenHelper.Callback delegate;
+        private final DatabaseConfig config;
+
+        ConfiguringCallback(SupportSQLiteOpenHelper.Callback delegate, DatabaseConfig config) {
+            super(delegate.version);
+            this.delegate = delegate;
+            this.config = config;
+        }
+
+        @Override
+        public void onConfigure(@NonNull SupportSQLiteDatabase db) {
+            delegate.onConfigure(db);
+            config.apply(db);
+        }
+
+        @Override
+        public void onCreate(@NonNull SupportSQLiteDatabase db) {
+            delegate.onCreate(db);
+        }
+
+        @Override
+        public void onUpgrade(@NonNull SupportSQLiteDatabase db, int oldVersion, int newVersion) {
+            delegate.onUpgrade(db, oldVersion, newVersion);
+        }
+
+        @Override
+        public void onDowngrade(@NonNull SupportSQLiteDatabase db, int oldVersion, int newVersion) {
+            delegate.onDowngrade(db, oldVersion, newVersion);
+        }
+
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            delegate.onOpen(db);
+        }
+
+        @Override
+        public void onCorruption(@NonNull SupportSQLiteDatabase db) {
+            delegate.onCorruption(db);
+        }
+    }
+}
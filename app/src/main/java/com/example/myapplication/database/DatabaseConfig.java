@@ -0,0 +1,67 @@
+package com.example.myapplication.database;
+
+import android.os.Build;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Journal mode and per-connection SQLite pragmas used when MovieDatabase is opened.
+ * WAL lets the read pool query while TMDB ingestion holds the write lock.
+ */
+public final class DatabaseConfig {
+    public enum Synchronous {
+        OFF,
+        // Safe in WAL mode: a crash never corrupts, a power loss can only drop the last commits.
+        NORMAL,
+        FULL
+    }
+
+    public static final DatabaseConfig DEFAULT = new DatabaseConfig(true, Synchronous.NORMAL, 8 * 1024, 32L * 1024 * 1024);
+
+    private final boolean writeAheadLogging;
+    private final Synchronous synchronous;
+    private final int cacheSizeKb;
+    private final long mmapSizeBytes;
+
+    public DatabaseConfig(boolean writeAheadLogging, Synchronous synchronous, int cacheSizeKb, long mmapSizeBytes) {
+        this.writeAheadLogging = writeAheadLogging;
+        this.synchronous = synchronous;
+        this.cacheSizeKb = cacheSizeKb;
+        this.mmapSizeBytes = mmapSizeBytes;
+    }
+
+    public boolean isWriteAheadLogging() {
+        return writeAheadLogging;
+    }
+
+    public Synchronous getSynchronous() {
+        return synchronous;
+    }
+
+    public int getCacheSizeKb() {
+        return cacheSizeKb;
+    }
+
+    public long getMmapSizeBytes() {
+        return mmapSizeBytes;
+    }
+
+    // Called from onConfigure on the primary connection, while it is the only one open.
+    void apply(SupportSQLiteDatabase db) {
+        String synchronousPragma = "PRAGMA synchronous = " + synchronous.name();
+        // A negative cache_size is in KiB rather than pages.
+        String cacheSizePragma = "PRAGMA cache_size = -" + cacheSizeKb;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            // Replayed by the framework on every connection the WAL pool opens later.
+            db.execPerConnectionSQL(synchronousPragma, null);
+            db.execPerConnectionSQL(cacheSizePragma, null);
+        } else {
+            // No per-connection hook before API 30: read connections keep the framework defaults.
+            db.query(synchronousPragma).close();
+            db.query(cacheSizePragma).close();
+        }
+        // mmap_size echoes a row, which execPerConnectionSQL rejects, so only the primary connection
+        // maps the file; readers fall back to regular page reads.
+        db.query("PRAGMA mmap_size = " + mmapSizeBytes).close();
+    }
+}
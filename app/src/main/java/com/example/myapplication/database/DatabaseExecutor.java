@@ -0,0 +1,82 @@
+package com.example.myapplication.database;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DatabaseExecutor {
+    // The default WAL pool is 4 connections including the primary, which writes hold, so 3 are left
+    // for readers; a fourth read thread would only queue for one of them.
+    private static final int READ_THREADS = 3;
+
+    private static DatabaseExecutor instance;
+
+    private final ExecutorService readExecutor;
+    private final ExecutorService writeExecutor;
+    private final Handler mainHandler;
+
+    public interface Task<T> {
+        T run();
+    }
+
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    private DatabaseExecutor() {
+        readExecutor = Executors.newFixedThreadPool(READ_THREADS, threadFactory("db-read"));
+        writeExecutor = Executors.newSingleThreadExecutor(threadFactory("db-write"));
+        mainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    public static synchronized DatabaseExecutor getInstance() {
+        if (instance == null) {
+            instance = new DatabaseExecutor();
+        }
+        return instance;
+    }
+
+    public Executor readExecutor() {
+        return readExecutor;
+    }
+
+    public Executor writeExecutor() {
+        return writeExecutor;
+    }
+
+    public <T> void read(Task<T> task, Callback<T> callback) {
+        readExecutor.execute(() -> deliver(task.run(), callback));
+    }
+
+    public <T> void write(Task<T> task, Callback<T> callback) {
+        writeExecutor.execute(() -> deliver(task.run(), callback));
+    }
+
+    public void write(Runnable task) {
+        writeExecutor.execute(task);
+    }
+
+    public void postToMain(Runnable runnable) {
+        mainHandler.post(runnable);
+    }
+
+    private <T> void deliver(T result, Callback<T> callback) {
+        if (callback != null) {
+            mainHandler.post(() -> callback.onResult(result));
+        }
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.myapplication.database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public final class FtsQuery {
+    private FtsQuery() {
+    }
+
+    public static List<String> tokens(String query) {
+        List<String> tokens = new ArrayList<>();
+        if (query == null) {
+            return tokens;
+        }
+        StringBuilder current = new StringBuilder();
+        String lower = query.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(c);
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    // Every token must match as a prefix in either column, e.g. "dark knig" -> "dark* knig*".
+    public static String prefixMatch(List<String> tokens) {
+        return join(tokens, "");
+    }
+
+    // Same match restricted to the title column, used to rank title hits above overview hits.
+    public static String titlePrefixMatch(List<String> tokens) {
+        return join(tokens, "title:");
+    }
+
+    private static String join(List<String> tokens, String columnPrefix) {
+        StringBuilder match = new StringBuilder();
+        for (String token : tokens) {
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append(columnPrefix).append(token).append('*');
+        }
+        return match.toString();
+    }
+}
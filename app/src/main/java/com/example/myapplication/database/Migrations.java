@@ -0,0 +1,151 @@
+package com.example.myapplication.database;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+// Every schema step since version 1, so upgrades keep cached movies, messages and favorites.
+// Statements mirror the CREATE SQL Room generates for the entities; see app/schemas for each version.
+final class Migrations {
+    private Migrations() {
+    }
+
+    // FTS4 index over movies, populated from rows already cached.
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `movies_fts` USING FTS4("
+                + "`title` TEXT, `overview` TEXT, tokenize=unicode61, content=`movies`)");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_movies_fts_BEFORE_UPDATE "
+                + "BEFORE UPDATE ON `movies` BEGIN DELETE FROM `movies_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_movies_fts_BEFORE_DELETE "
+                + "BEFORE DELETE ON `movies` BEGIN DELETE FROM `movies_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_movies_fts_AFTER_UPDATE "
+                + "AFTER UPDATE ON `movies` BEGIN INSERT INTO `movies_fts`(`docid`, `title`, `overview`) "
+                + "VALUES (NEW.`rowid`, NEW.`title`, NEW.`overview`); END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_movies_fts_AFTER_INSERT "
+                + "AFTER INSERT ON `movies` BEGIN INSERT INTO `movies_fts`(`docid`, `title`, `overview`) "
+                + "VALUES (NEW.`rowid`, NEW.`title`, NEW.`overview`); END");
+            db.execSQL("INSERT INTO `movies_fts`(`movies_fts`) VALUES ('rebuild')");
+        }
+    };
+
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `search_cache` (`query` TEXT NOT NULL, `movieIds` TEXT, "
+                + "`page` INTEGER NOT NULL, `totalPages` INTEGER NOT NULL, `totalResults` INTEGER NOT NULL, "
+                + "`cachedAt` INTEGER NOT NULL, PRIMARY KEY(`query`))");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_search_cache_cachedAt` ON `search_cache` (`cachedAt`)");
+        }
+    };
+
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("DELETE FROM friends WHERE id NOT IN "
+                + "(SELECT MIN(id) FROM friends GROUP BY userId, friendId)");
+            db.execSQL("DROP INDEX IF EXISTS `index_friends_userId`");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_friends_userId_friendId` "
+                + "ON `friends` (`userId`, `friendId`)");
+        }
+    };
+
+    // Column collation can only change by rebuilding the table. Foreign keys are not enforced
+    // while migrations run, so dropping the old table leaves rows that reference it alone.
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `users_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                + "`username` TEXT COLLATE NOCASE, `email` TEXT COLLATE NOCASE, `password` TEXT)");
+            db.execSQL("INSERT INTO `users_new` (`id`, `username`, `email`, `password`) "
+                + "SELECT `id`, `username`, `email`, `password` FROM `users`");
+            db.execSQL("DROP TABLE `users`");
+            db.execSQL("ALTER TABLE `users_new` RENAME TO `users`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_users_username_id` ON `users` (`username`, `id`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_users_email` ON `users` (`email`)");
+        }
+    };
+
+    // Backfills Message.conversationId(int, int): the smaller user id in the high 32 bits.
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `messages` ADD COLUMN `conversationId` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("UPDATE `messages` SET `conversationId` = "
+                + "(MIN(senderId, receiverId) << 32) | MAX(senderId, receiverId)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_messages_conversationId_timestamp_id` "
+                + "ON `messages` (`conversationId`, `timestamp`, `id`)");
+        }
+    };
+
+    // Inbox rows for existing conversations start with no unread messages.
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `conversations` (`userId` INTEGER NOT NULL, "
+                + "`conversationId` INTEGER NOT NULL, `otherUserId` INTEGER NOT NULL, "
+                + "`lastSenderId` INTEGER NOT NULL, `lastMessage` TEXT, `lastTimestamp` INTEGER NOT NULL, "
+                + "`unreadCount` INTEGER NOT NULL, PRIMARY KEY(`userId`, `conversationId`), "
+                + "FOREIGN KEY(`userId`) REFERENCES `users`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE , "
+                + "FOREIGN KEY(`otherUserId`) REFERENCES `users`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_conversations_userId_lastTimestamp` "
+                + "ON `conversations` (`userId`, `lastTimestamp`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_conversations_otherUserId` "
+                + "ON `conversations` (`otherUserId`)");
+            db.execSQL("INSERT OR REPLACE INTO `conversations` (userId, conversationId, otherUserId, "
+                + "lastSenderId, lastMessage, lastTimestamp, unreadCount) "
+                + "SELECT p.userId, m.conversationId, p.otherUserId, m.senderId, m.content, m.timestamp, 0 "
+                + "FROM (SELECT senderId AS userId, receiverId AS otherUserId, conversationId FROM messages "
+                + "UNION SELECT receiverId, senderId, conversationId FROM messages) p "
+                + "JOIN messages m ON m.id = (SELECT id FROM messages WHERE conversationId = p.conversationId "
+                + "ORDER BY timestamp DESC, id DESC LIMIT 1)");
+        }
+    };
+
+    // Collapses duplicate (userId, movieId) rows, keeping the oldest, before the unique indexes go on.
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            for (String table : new String[] {"likes", "favorites"}) {
+                db.execSQL("DELETE FROM " + table + " WHERE id NOT IN "
+                    + "(SELECT MIN(id) FROM " + table + " GROUP BY userId, movieId)");
+                db.execSQL("DROP INDEX IF EXISTS index_" + table + "_userId");
+                db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS index_" + table + "_userId_movieId "
+                    + "ON " + table + " (userId, movieId)");
+            }
+        }
+    };
+
+    // Folds rows from the old user_favourite table, if a build ever created it, into favorites.
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            boolean legacyTable;
+            try (Cursor cursor = db.query(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'user_favourite'")) {
+                legacyTable = cursor.moveToFirst();
+            }
+            if (!legacyTable) {
+                return;
+            }
+            db.execSQL("INSERT OR IGNORE INTO favorites (userId, movieId) "
+                + "SELECT userId, movieId FROM user_favourite "
+                + "WHERE userId IN (SELECT id FROM users) AND movieId IN (SELECT id FROM movies)");
+            db.execSQL("DROP TABLE user_favourite");
+        }
+    };
+
+    static final Migration[] ALL = {
+        MIGRATION_1_2,
+        MIGRATION_2_3,
+        MIGRATION_3_4,
+        MIGRATION_4_5,
+        MIGRATION_5_6,
+        MIGRATION_6_7,
+        MIGRATION_7_8,
+        MIGRATION_8_9
+    };
+}
@@ -5,24 +5,30 @@ import android.content.Context;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
 
 import com.example.myapplication.database.dao.FavoriteDao;
 import com.example.myapplication.database.dao.FriendDao;
 import com.example.myapplication.database.dao.LikeDao;
 import com.example.myapplication.database.dao.MessageDao;
 import com.example.myapplication.database.dao.MovieDao;
+import com.example.myapplication.database.dao.SearchCacheDao;
 import com.example.myapplication.database.dao.UserDao;
+import com.example.myapplication.database.entity.Conversation;
 import com.example.myapplication.database.entity.Favorite;
 import com.example.myapplication.database.entity.Friend;
 import com.example.myapplication.database.entity.Like;
 import com.example.myapplication.database.entity.Message;
 import com.example.myapplication.database.entity.Movie;
+import com.example.myapplication.database.entity.MovieFts;
+import com.example.myapplication.database.entity.SearchCacheEntry;
 import com.example.myapplication.database.entity.User;
 
 @Database(
-    entities = {Movie.class, User.class, Favorite.class, Like.class, Message.class, Friend.class},
-    version = 1,
-    exportSchema = false
+    entities = {Movie.class, User.class, Favorite.class, Like.class, Message.class, Friend.class, MovieFts.class,
+        SearchCacheEntry.class, Conversation.class},
+    version = 9,
+    exportSchema = true
 )
 public abstract class MovieDatabase extends RoomDatabase {
     private static MovieDatabase instance;
@@ -33,25 +39,39 @@ public abstract class MovieDatabase extends RoomDatabase {
     public abstract LikeDao likeDao();
     public abstract MessageDao messageDao();
     public abstract FriendDao friendDao();
+    public abstract SearchCacheDao searchCacheDao();
 
-    public static synchronized MovieDatabase getInstance(Context context) {
+    public static MovieDatabase getInstance(Context context) {
+        return getInstance(context, DatabaseConfig.DEFAULT);
+    }
+
+    // The config only takes effect on the call that opens the database.
+    public static synchronized MovieDatabase getInstance(Context context, DatabaseConfig config) {
         if (instance == null) {
             if (context == null) {
                 throw new IllegalStateException("Context cannot be null");
             }
             try {
-                instance = Room.databaseBuilder(
-                    context.getApplicationContext(),
-                    MovieDatabase.class,
-                    "movie_database"
-                )
-                .allowMainThreadQueries()
-                .fallbackToDestructiveMigration()
-                .build();
+                instance = builder(context, "movie_database", config).build();
             } catch (Exception e) {
                 throw new RuntimeException("Failed to initialize database", e);
             }
         }
         return instance;
     }
+
+    // Everything but the singleton, so tests can open their own file with another config.
+    static Builder<MovieDatabase> builder(Context context, String name, DatabaseConfig config) {
+        DatabaseExecutor executor = DatabaseExecutor.getInstance();
+        return Room.databaseBuilder(context.getApplicationContext(), MovieDatabase.class, name)
+            .setQueryExecutor(executor.readExecutor())
+            .setTransactionExecutor(executor.writeExecutor())
+            .setJournalMode(config.isWriteAheadLogging()
+                ? JournalMode.WRITE_AHEAD_LOGGING
+                : JournalMode.TRUNCATE)
+            .openHelperFactory(new ConfiguredOpenHelperFactory(new FrameworkSQLiteOpenHelperFactory(), config))
+            .addMigrations(Migrations.ALL)
+            // Upgrades must never drop the cache; only an app downgrade may rebuild it.
+            .fallbackToDestructiveMigrationOnDowngrade();
+    }
 }
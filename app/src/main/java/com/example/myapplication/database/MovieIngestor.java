@@ -0,0 +1,63 @@
+package com.example.myapplication.database;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.myapplication.api.model.MoviePage;
+import com.example.myapplication.database.entity.Movie;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MovieIngestor {
+    private static final String TAG = "MovieIngestor";
+
+    private final MovieDatabase database;
+    private final DatabaseExecutor dbExecutor;
+
+    public static class Result {
+        private final List<Movie> movies;
+        private final int rowsWritten;
+        private final long durationMs;
+
+        Result(List<Movie> movies, int rowsWritten, long durationMs) {
+            this.movies = movies;
+            this.rowsWritten = rowsWritten;
+            this.durationMs = durationMs;
+        }
+
+        public List<Movie> getMovies() {
+            return movies;
+        }
+
+        public int getRowsWritten() {
+            return rowsWritten;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+    }
+
+    public MovieIngestor(MovieDatabase database, DatabaseExecutor dbExecutor) {
+        this.database = database;
+        this.dbExecutor = dbExecutor;
+    }
+
+    public void ingest(MoviePage page, DatabaseExecutor.Callback<Result> callback) {
+        dbExecutor.write(() -> ingestNow(page), callback);
+    }
+
+    // Must be called on a background thread.
+    public Result ingestNow(MoviePage page) {
+        long start = SystemClock.elapsedRealtime();
+        List<Movie> movies = page != null && page.getMovies() != null ? page.getMovies() : new ArrayList<>();
+        if (!movies.isEmpty()) {
+            // One transaction; upserting keeps likes, favorites and the FTS index intact for known movies.
+            database.movieDao().upsertMovies(movies);
+        }
+        long durationMs = SystemClock.elapsedRealtime() - start;
+        Log.d(TAG, "Wrote " + movies.size() + " movies in " + durationMs + " ms");
+        return new Result(movies, movies.size(), durationMs);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.myapplication.database;
+
+import android.util.SparseBooleanArray;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-user favorite and like membership, kept as primitive int sets and shared by every
+ * screen that shows movies. Main-thread confined; loads run on the database read pool.
+ */
+public class MovieStateStore {
+    private static MovieStateStore instance;
+
+    private final MovieDatabase database;
+    private final DatabaseExecutor dbExecutor;
+    private final List<Listener> listeners = new ArrayList<>();
+    private SparseBooleanArray favoriteIds = new SparseBooleanArray();
+    private SparseBooleanArray likedIds = new SparseBooleanArray();
+    private PendingWrites pendingWrites;
+    private int userId = -1;
+    private int loadGeneration;
+
+    public interface Listener {
+        void onFavoriteChanged(int movieId);
+        void onLikeChanged(int movieId);
+        void onStateReloaded();
+    }
+
+    // Writes accepted but not yet committed; re-applied on top of every load.
+    public interface PendingWrites {
+        void applyTo(int userId, MovieStateStore store);
+    }
+
+    private static class Snapshot {
+        final SparseBooleanArray favoriteIds;
+        final SparseBooleanArray likedIds;
+
+        Snapshot(SparseBooleanArray favoriteIds, SparseBooleanArray likedIds) {
+            this.favoriteIds = favoriteIds;
+            this.likedIds = likedIds;
+        }
+    }
+
+    private MovieStateStore(MovieDatabase database, DatabaseExecutor dbExecutor) {
+        this.database = database;
+        this.dbExecutor = dbExecutor;
+    }
+
+    public static synchronized MovieStateStore getInstance(MovieDatabase database) {
+        if (instance == null) {
+            instance = new MovieStateStore(database, DatabaseExecutor.getInstance());
+        }
+        return instance;
+    }
+
+    public void ensureLoaded(int userId) {
+        if (this.userId != userId) {
+            load(userId);
+        }
+    }
+
+    public void load(int userId) {
+        this.userId = userId;
+        int generation = ++loadGeneration;
+        dbExecutor.read(() -> new Snapshot(
+            toSet(database.favoriteDao().getFavoriteMovieIds(userId)),
+            toSet(database.likeDao().getLikedMovieIds(userId))
+        ), snapshot -> {
+            if (generation != loadGeneration) {
+                return;
+            }
+            favoriteIds = snapshot.favoriteIds;
+            likedIds = snapshot.likedIds;
+            if (pendingWrites != null) {
+                pendingWrites.applyTo(userId, this);
+            }
+            for (Listener listener : new ArrayList<>(listeners)) {
+                listener.onStateReloaded();
+            }
+        });
+    }
+
+    public void clear() {
+        userId = -1;
+        loadGeneration++;
+        favoriteIds = new SparseBooleanArray();
+        likedIds = new SparseBooleanArray();
+        for (Listener listener : new ArrayList<>(listeners)) {
+            listener.onStateReloaded();
+        }
+    }
+
+    public boolean isFavorite(int movieId) {
+        return favoriteIds.get(movieId);
+    }
+
+    public boolean isLiked(int movieId) {
+        return likedIds.get(movieId);
+    }
+
+    public void setFavorite(int movieId, boolean favorite) {
+        if (set(favoriteIds, movieId, favorite)) {
+            for (Listener listener : new ArrayList<>(listeners)) {
+                listener.onFavoriteChanged(movieId);
+            }
+        }
+    }
+
+    public void setLiked(int movieId, boolean liked) {
+        if (set(likedIds, movieId, liked)) {
+            for (Listener listener : new ArrayList<>(listeners)) {
+                listener.onLikeChanged(movieId);
+            }
+        }
+    }
+
+    public void setPendingWrites(PendingWrites pendingWrites) {
+        this.pendingWrites = pendingWrites;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private static boolean set(SparseBooleanArray ids, int movieId, boolean member) {
+        if (ids.get(movieId) == member) {
+            return false;
+        }
+        if (member) {
+            ids.put(movieId, true);
+        } else {
+            ids.delete(movieId);
+        }
+        return true;
+    }
+
+    private static SparseBooleanArray toSet(List<Integer> ids) {
+        SparseBooleanArray set = new SparseBooleanArray(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            set.put(ids.get(i), true);
+        }
+        return set;
+    }
+}
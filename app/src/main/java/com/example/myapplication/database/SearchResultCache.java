@@ -0,0 +1,151 @@
+package com.example.myapplication.database;
+
+import android.util.LruCache;
+
+import com.example.myapplication.database.entity.Movie;
+import com.example.myapplication.database.entity.SearchCacheEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query-result cache for TMDB searches: an in-memory LRU of ready-to-render results in
+ * front of the search_cache table, which stores ordered movie ids plus page info.
+ */
+public class SearchResultCache {
+    private static final long TTL_MS = TimeUnit.MINUTES.toMillis(30);
+    private static final int MEMORY_ENTRIES = 32;
+    private static final int DISK_ENTRIES = 200;
+
+    private static SearchResultCache instance;
+
+    private final MovieDatabase database;
+    private final DatabaseExecutor dbExecutor;
+    private final LruCache<String, CachedSearch> memory = new LruCache<>(MEMORY_ENTRIES);
+
+    public static class CachedSearch {
+        private final List<Movie> movies;
+        private final int page;
+        private final int totalPages;
+        private final int totalResults;
+        private final long cachedAt;
+
+        CachedSearch(List<Movie> movies, int page, int totalPages, int totalResults, long cachedAt) {
+            this.movies = Collections.unmodifiableList(movies);
+            this.page = page;
+            this.totalPages = totalPages;
+            this.totalResults = totalResults;
+            this.cachedAt = cachedAt;
+        }
+
+        public List<Movie> getMovies() {
+            return movies;
+        }
+
+        public int getPage() {
+            return page;
+        }
+
+        public int getTotalPages() {
+            return totalPages;
+        }
+
+        public int getTotalResults() {
+            return totalResults;
+        }
+
+        boolean isExpired(long now) {
+            return now - cachedAt > TTL_MS;
+        }
+    }
+
+    private SearchResultCache(MovieDatabase database, DatabaseExecutor dbExecutor) {
+        this.database = database;
+        this.dbExecutor = dbExecutor;
+    }
+
+    public static synchronized SearchResultCache getInstance(MovieDatabase database) {
+        if (instance == null) {
+            instance = new SearchResultCache(database, DatabaseExecutor.getInstance());
+        }
+        return instance;
+    }
+
+    public static String normalize(String query) {
+        return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // Safe on the main thread.
+    public CachedSearch getFromMemory(String query) {
+        String key = normalize(query);
+        CachedSearch cached = memory.get(key);
+        if (cached != null && cached.isExpired(System.currentTimeMillis())) {
+            memory.remove(key);
+            return null;
+        }
+        return cached;
+    }
+
+    // Must be called on a background thread.
+    public CachedSearch load(String query) {
+        CachedSearch cached = getFromMemory(query);
+        if (cached != null) {
+            return cached;
+        }
+        String key = normalize(query);
+        long now = System.currentTimeMillis();
+        SearchCacheEntry entry = database.searchCacheDao().getFreshEntry(key, now - TTL_MS);
+        if (entry == null) {
+            return null;
+        }
+        List<Integer> ids = parseIds(entry.getMovieIds());
+        List<Movie> movies = database.movieDao().getMoviesInOrder(ids);
+        if (movies.size() != ids.size()) {
+            // Some movies were evicted from the movies table; treat as a miss.
+            return null;
+        }
+        cached = new CachedSearch(movies, entry.getPage(), entry.getTotalPages(),
+            entry.getTotalResults(), entry.getCachedAt());
+        memory.put(key, cached);
+        return cached;
+    }
+
+    public void put(String query, List<Movie> movies, int page, int totalPages, int totalResults) {
+        String key = normalize(query);
+        long now = System.currentTimeMillis();
+        memory.put(key, new CachedSearch(new ArrayList<>(movies), page, totalPages, totalResults, now));
+        SearchCacheEntry entry = new SearchCacheEntry(key, joinIds(movies), page, totalPages, totalResults, now);
+        dbExecutor.write(() -> {
+            database.runInTransaction(() -> {
+                database.searchCacheDao().insertEntry(entry);
+                database.searchCacheDao().deleteExpired(now - TTL_MS);
+                database.searchCacheDao().trimTo(DISK_ENTRIES);
+            });
+        });
+    }
+
+    private static String joinIds(List<Movie> movies) {
+        StringBuilder ids = new StringBuilder();
+        for (Movie movie : movies) {
+            if (ids.length() > 0) {
+                ids.append(',');
+            }
+            ids.append(movie.getId());
+        }
+        return ids.toString();
+    }
+
+    private static List<Integer> parseIds(String ids) {
+        List<Integer> parsed = new ArrayList<>();
+        if (ids == null || ids.isEmpty()) {
+            return parsed;
+        }
+        for (String id : ids.split(",")) {
+            parsed.add(Integer.parseInt(id));
+        }
+        return parsed;
+    }
+}
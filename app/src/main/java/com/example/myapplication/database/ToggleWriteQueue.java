@@ -0,0 +1,289 @@
+package com.example.myapplication.database;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.myapplication.database.entity.Movie;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Write-behind queue for like and favorite taps. Each tap updates the MovieStateStore at once
+ * and records the desired final state per (userId, movieId), so repeated taps collapse. Net
+ * changes are written in one transaction after a short delay or when a screen stops.
+ * Both the toggles and the movie rows they need are journaled until their batch commits, so
+ * a batch that never runs before logout or process death is replayed later. When a batch fails,
+ * its toggles are retried one by one so a bad entry cannot hold back the rest; toggles that keep
+ * failing are retried with exponential backoff and dropped after MAX_ATTEMPTS.
+ * Main-thread confined.
+ */
+public class ToggleWriteQueue implements MovieStateStore.PendingWrites {
+    private static final String TAG = "ToggleWriteQueue";
+    private static final long FLUSH_DELAY_MS = 750;
+    private static final long MAX_RETRY_DELAY_MS = 60_000;
+    private static final int MAX_ATTEMPTS = 5;
+    // Pending entries are journaled here until their transaction commits, so process death loses nothing.
+    private static final String JOURNAL_NAME = "PendingToggles";
+    // Movie rows for pending toggles, as JSON keyed by movie id; a replayed add needs its movie cached.
+    private static final String MOVIE_JOURNAL_NAME = "PendingToggleMovies";
+    private static final String LIKE = "like";
+    private static final String FAVORITE = "favorite";
+
+    private static ToggleWriteQueue instance;
+
+    private final MovieDatabase database;
+    private final DatabaseExecutor dbExecutor;
+    private final SharedPreferences journal;
+    private final SharedPreferences movieJournal;
+    private final Gson gson = new Gson();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flush;
+    private Map<String, Boolean> pending = new LinkedHashMap<>();
+    private Map<String, Boolean> inFlight = new LinkedHashMap<>();
+    // Movies that must exist locally before their like or favorite row can reference them.
+    private final Map<Integer, Movie> pendingMovies = new HashMap<>();
+    // Failed writes per toggle key, in this process; a key is dropped when it reaches MAX_ATTEMPTS.
+    private final Map<String, Integer> failedAttempts = new HashMap<>();
+    // Flushes in a row that left a toggle unwritten; sets the backoff of the next one.
+    private int failedFlushes;
+    private boolean flushScheduled;
+    private final List<Runnable> flushCallbacks = new ArrayList<>();
+
+    private ToggleWriteQueue(Context context) {
+        database = MovieDatabase.getInstance(context);
+        dbExecutor = DatabaseExecutor.getInstance();
+        journal = context.getSharedPreferences(JOURNAL_NAME, Context.MODE_PRIVATE);
+        movieJournal = context.getSharedPreferences(MOVIE_JOURNAL_NAME, Context.MODE_PRIVATE);
+        for (Map.Entry<String, ?> entry : journal.getAll().entrySet()) {
+            if (entry.getValue() instanceof Boolean) {
+                pending.put(entry.getKey(), (Boolean) entry.getValue());
+            }
+        }
+        for (Map.Entry<String, ?> entry : movieJournal.getAll().entrySet()) {
+            Movie movie = readMovie(entry.getValue());
+            if (movie != null) {
+                pendingMovies.put(movie.getId(), movie);
+            }
+        }
+        MovieStateStore.getInstance(database).setPendingWrites(this);
+        if (!pending.isEmpty()) {
+            scheduleFlush();
+        }
+    }
+
+    public static synchronized ToggleWriteQueue getInstance(Context context) {
+        if (instance == null) {
+            instance = new ToggleWriteQueue(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public void setLiked(int userId, Movie movie, boolean liked) {
+        enqueue(key(LIKE, userId, movie.getId()), movie, liked);
+    }
+
+    public void setFavorite(int userId, Movie movie, boolean favorite) {
+        enqueue(key(FAVORITE, userId, movie.getId()), movie, favorite);
+    }
+
+    // Runs onDone on the main thread once every toggle made so far has been tried. A toggle that
+    // failed stays journaled for a later retry, even across logout, rather than holding onDone back.
+    public void flush(Runnable onDone) {
+        flush();
+        if (inFlight.isEmpty()) {
+            onDone.run();
+        } else {
+            flushCallbacks.add(onDone);
+        }
+    }
+
+    public void flush() {
+        handler.removeCallbacks(flushRunnable);
+        flushScheduled = false;
+        if (pending.isEmpty() || !inFlight.isEmpty()) {
+            // A flush still running reschedules this one when it completes.
+            return;
+        }
+        Map<String, Boolean> batch = pending;
+        List<Movie> movies = new ArrayList<>(pendingMovies.values());
+        pending = new LinkedHashMap<>();
+        pendingMovies.clear();
+        inFlight = batch;
+        dbExecutor.write(() -> writeBatch(batch, movies), failed -> onFlushed(batch, movies, failed));
+    }
+
+    @Override
+    public void applyTo(int userId, MovieStateStore store) {
+        applyTo(inFlight, userId, store);
+        applyTo(pending, userId, store);
+    }
+
+    private void enqueue(String key, Movie movie, boolean state) {
+        pending.put(key, state);
+        if (state) {
+            pendingMovies.put(movie.getId(), movie);
+            movieJournal.edit().putString(String.valueOf(movie.getId()), gson.toJson(movie)).apply();
+        }
+        journal.edit().putBoolean(key, state).apply();
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            long delay = failedFlushes == 0
+                ? FLUSH_DELAY_MS
+                : Math.min(FLUSH_DELAY_MS << failedFlushes, MAX_RETRY_DELAY_MS);
+            handler.postDelayed(flushRunnable, delay);
+        }
+    }
+
+    // Writes the batch in one transaction. If that fails, each toggle gets its own transaction, with
+    // its movie, so one bad entry cannot hold back the rest. Returns the keys that were not written.
+    private Set<String> writeBatch(Map<String, Boolean> batch, List<Movie> movies) {
+        try {
+            database.runInTransaction(() -> write(batch, movies));
+            return Collections.emptySet();
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Flushing " + batch.size() + " toggles failed", e);
+        }
+        if (batch.size() == 1) {
+            return new HashSet<>(batch.keySet());
+        }
+        Map<Integer, Movie> moviesById = new HashMap<>();
+        for (Movie movie : movies) {
+            moviesById.put(movie.getId(), movie);
+        }
+        Set<String> failed = new HashSet<>();
+        for (Map.Entry<String, Boolean> entry : batch.entrySet()) {
+            Movie movie = moviesById.get(movieId(entry.getKey()));
+            try {
+                database.runInTransaction(() -> write(
+                    Collections.singletonMap(entry.getKey(), entry.getValue()),
+                    movie != null ? Collections.singletonList(movie) : Collections.emptyList()));
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Writing toggle " + entry.getKey() + " failed", e);
+                failed.add(entry.getKey());
+            }
+        }
+        return failed;
+    }
+
+    private void write(Map<String, Boolean> batch, List<Movie> movies) {
+        for (Movie movie : movies) {
+            database.movieDao().insertMovieIfAbsent(movie);
+        }
+        for (Map.Entry<String, Boolean> entry : batch.entrySet()) {
+            String[] parts = entry.getKey().split(":");
+            int userId = Integer.parseInt(parts[1]);
+            int movieId = Integer.parseInt(parts[2]);
+            boolean state = entry.getValue();
+            if (LIKE.equals(parts[0])) {
+                if (state) {
+                    database.likeDao().addLike(userId, movieId);
+                } else {
+                    database.likeDao().removeLike(userId, movieId);
+                }
+            } else if (state) {
+                database.favoriteDao().addFavorite(userId, movieId);
+            } else {
+                database.favoriteDao().removeFavorite(userId, movieId);
+            }
+        }
+    }
+
+    private void onFlushed(Map<String, Boolean> batch, List<Movie> movies, Set<String> failed) {
+        inFlight = new LinkedHashMap<>();
+        Set<Integer> retriedMovieIds = new HashSet<>();
+        SharedPreferences.Editor editor = journal.edit();
+        for (Map.Entry<String, Boolean> entry : batch.entrySet()) {
+            String key = entry.getKey();
+            if (failed.contains(key)) {
+                int attempts = failedAttempts.containsKey(key) ? failedAttempts.get(key) + 1 : 1;
+                if (attempts < MAX_ATTEMPTS) {
+                    failedAttempts.put(key, attempts);
+                    pending.putIfAbsent(key, entry.getValue());
+                    retriedMovieIds.add(movieId(key));
+                    continue;
+                }
+                Log.e(TAG, "Dropping toggle " + key + " after " + attempts + " failed writes");
+            }
+            failedAttempts.remove(key);
+            // A newer tap on the same key is still pending and keeps its journal entry.
+            if (!pending.containsKey(key)) {
+                editor.remove(key);
+            }
+        }
+        editor.apply();
+        SharedPreferences.Editor movieEditor = movieJournal.edit();
+        for (Movie movie : movies) {
+            if (retriedMovieIds.contains(movie.getId())) {
+                pendingMovies.putIfAbsent(movie.getId(), movie);
+            } else if (!pendingMovies.containsKey(movie.getId())) {
+                movieEditor.remove(String.valueOf(movie.getId()));
+            }
+        }
+        movieEditor.apply();
+        failedFlushes = retriedMovieIds.isEmpty() ? 0 : failedFlushes + 1;
+        if (failed.isEmpty() && !pending.isEmpty() && !flushCallbacks.isEmpty()) {
+            // Toggles made while this batch ran are part of what the callers wait for.
+            flush();
+            return;
+        }
+        List<Runnable> callbacks = new ArrayList<>(flushCallbacks);
+        flushCallbacks.clear();
+        for (Runnable callback : callbacks) {
+            callback.run();
+        }
+        if (!pending.isEmpty()) {
+            scheduleFlush();
+        }
+    }
+
+    private Movie readMovie(Object json) {
+        if (!(json instanceof String)) {
+            return null;
+        }
+        try {
+            return gson.fromJson((String) json, Movie.class);
+        } catch (JsonParseException e) {
+            Log.w(TAG, "Dropping unreadable journaled movie", e);
+            return null;
+        }
+    }
+
+    private static void applyTo(Map<String, Boolean> entries, int userId, MovieStateStore store) {
+        for (Map.Entry<String, Boolean> entry : entries.entrySet()) {
+            String[] parts = entry.getKey().split(":");
+            if (Integer.parseInt(parts[1]) != userId) {
+                continue;
+            }
+            int movieId = Integer.parseInt(parts[2]);
+            if (LIKE.equals(parts[0])) {
+                store.setLiked(movieId, entry.getValue());
+            } else {
+                store.setFavorite(movieId, entry.getValue());
+            }
+        }
+    }
+
+    private static String key(String type, int userId, int movieId) {
+        return type + ":" + userId + ":" + movieId;
+    }
+
+    private static int movieId(String key) {
+        return Integer.parseInt(key.split(":")[2]);
+    }
+}
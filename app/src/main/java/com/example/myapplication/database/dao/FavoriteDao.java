@@ -1,5 +1,6 @@
 package com.example.myapplication.database.dao;
 
+import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
@@ -11,6 +12,7 @@ import com.example.myapplication.database.entity.Movie;
 
 import java.util.List;
 
+// The single favorites store: keyed by the unique (userId, movieId) index, which also covers the ID-only reads.
 @Dao
 public interface FavoriteDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
@@ -19,12 +21,24 @@ public interface FavoriteDao {
     @Delete
     void deleteFavorite(Favorite favorite);
 
-    @Query("SELECT * FROM favorites WHERE userId = :userId AND movieId = :movieId")
-    Favorite getFavorite(int userId, int movieId);
+    // Skips movies that are not stored locally rather than failing the enclosing transaction.
+    @Query("INSERT OR IGNORE INTO favorites (userId, movieId) "
+        + "SELECT :userId, :movieId WHERE EXISTS (SELECT 1 FROM movies WHERE id = :movieId)")
+    void addFavorite(int userId, int movieId);
+
+    @Query("DELETE FROM favorites WHERE userId = :userId AND movieId = :movieId")
+    int removeFavorite(int userId, int movieId);
 
     @Query("SELECT movies.* FROM movies INNER JOIN favorites ON movies.id = favorites.movieId WHERE favorites.userId = :userId")
     List<Movie> getFavoriteMovies(int userId);
 
-    @Query("SELECT COUNT(*) FROM favorites WHERE userId = :userId AND movieId = :movieId")
-    int isFavorite(int userId, int movieId);
+    // Re-queried on the read pool whenever movies or favorites is invalidated.
+    @Query("SELECT movies.* FROM movies INNER JOIN favorites ON movies.id = favorites.movieId WHERE favorites.userId = :userId")
+    LiveData<List<Movie>> observeFavoriteMovies(int userId);
+
+    @Query("SELECT EXISTS(SELECT 1 FROM favorites WHERE userId = :userId AND movieId = :movieId)")
+    boolean isFavorite(int userId, int movieId);
+
+    @Query("SELECT movieId FROM favorites WHERE userId = :userId")
+    List<Integer> getFavoriteMovieIds(int userId);
 }
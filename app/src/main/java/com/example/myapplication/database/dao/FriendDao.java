@@ -1,5 +1,6 @@
 package com.example.myapplication.database.dao;
 
+import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
@@ -8,6 +9,7 @@ import androidx.room.Query;
 
 import com.example.myapplication.database.entity.Friend;
 import com.example.myapplication.database.entity.User;
+import com.example.myapplication.database.model.UserWithFriendship;
 
 import java.util.List;
 
@@ -24,4 +26,13 @@ public interface FriendDao {
 
     @Query("SELECT * FROM friends WHERE userId = :userId AND friendId = :friendId")
     Friend getFriend(int userId, int friendId);
+
+    @Query("SELECT users.id, users.username, users.email, 1 AS isFriend "
+        + "FROM users INNER JOIN friends ON users.id = friends.friendId "
+        + "WHERE friends.userId = :userId "
+        + "ORDER BY users.username")
+    List<UserWithFriendship> getFriendsWithFriendship(int userId);
+
+    @Query("SELECT friendId FROM friends WHERE userId = :userId")
+    LiveData<List<Integer>> observeFriendIds(int userId);
 }
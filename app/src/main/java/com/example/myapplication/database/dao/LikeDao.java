@@ -8,6 +8,8 @@ import androidx.room.Query;
 
 import com.example.myapplication.database.entity.Like;
 
+import java.util.List;
+
 @Dao
 public interface LikeDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
@@ -16,9 +18,17 @@ public interface LikeDao {
     @Delete
     void deleteLike(Like like);
 
-    @Query("SELECT * FROM likes WHERE userId = :userId AND movieId = :movieId")
-    Like getLike(int userId, int movieId);
+    // Skips movies that are not stored locally rather than failing the enclosing transaction.
+    @Query("INSERT OR IGNORE INTO likes (userId, movieId) "
+        + "SELECT :userId, :movieId WHERE EXISTS (SELECT 1 FROM movies WHERE id = :movieId)")
+    void addLike(int userId, int movieId);
+
+    @Query("DELETE FROM likes WHERE userId = :userId AND movieId = :movieId")
+    int removeLike(int userId, int movieId);
 
     @Query("SELECT COUNT(*) FROM likes WHERE userId = :userId AND movieId = :movieId")
     int isLiked(int userId, int movieId);
+
+    @Query("SELECT movieId FROM likes WHERE userId = :userId")
+    List<Integer> getLikedMovieIds(int userId);
 }
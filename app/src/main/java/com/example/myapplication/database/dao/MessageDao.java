@@ -1,22 +1,77 @@
 package com.example.myapplication.database.dao;
 
+import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 
+import com.example.myapplication.database.entity.Conversation;
 import com.example.myapplication.database.entity.Message;
 
 import java.util.List;
 
 @Dao
 public interface MessageDao {
+    // The cursor is spelled as a plain <= (>=) plus a tie-break so the index seeks to it; the
+    // "timestamp < t OR (timestamp = t AND id < i)" form only binds conversationId and walks the
+    // whole conversation. MessageDaoTest checks the plans of both.
+    String MESSAGES_BEFORE = "SELECT * FROM messages WHERE conversationId = :conversationId "
+        + "AND timestamp <= :beforeTimestamp AND (timestamp < :beforeTimestamp OR id < :beforeId) "
+        + "ORDER BY timestamp DESC, id DESC LIMIT :limit";
+    String MESSAGES_AFTER = "SELECT * FROM messages WHERE conversationId = :conversationId "
+        + "AND timestamp >= :afterTimestamp AND (timestamp > :afterTimestamp OR id > :afterId) "
+        + "ORDER BY timestamp ASC, id ASC LIMIT :limit";
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insertMessage(Message message);
+    long insertMessageRow(Message message);
+
+    // Inserts the message and advances both participants' inbox rows atomically.
+    @Transaction
+    default long insertMessage(Message message) {
+        long id = insertMessageRow(message);
+        long conversationId = message.getConversationId();
+        int senderId = message.getSenderId();
+        int receiverId = message.getReceiverId();
+        ensureConversation(senderId, conversationId, receiverId);
+        ensureConversation(receiverId, conversationId, senderId);
+        updateLastMessage(senderId, conversationId, senderId, message.getContent(), message.getTimestamp(), 0);
+        updateLastMessage(receiverId, conversationId, senderId, message.getContent(), message.getTimestamp(), 1);
+        return id;
+    }
+
+    // Newest-first page strictly before (beforeTimestamp, beforeId); served by the conversation index.
+    @Query(MESSAGES_BEFORE)
+    List<Message> getMessagesBefore(long conversationId, long beforeTimestamp, int beforeId, int limit);
+
+    // Oldest-first page strictly after (afterTimestamp, afterId).
+    @Query(MESSAGES_AFTER)
+    List<Message> getMessagesAfter(long conversationId, long afterTimestamp, int afterId, int limit);
+
+    // Newest page of a conversation, re-emitted whenever messages is invalidated.
+    @Query("SELECT * FROM messages WHERE conversationId = :conversationId "
+        + "ORDER BY timestamp DESC, id DESC LIMIT :limit")
+    LiveData<List<Message>> observeLatestMessages(long conversationId, int limit);
+
+    // INSERT OR IGNORE plus UPDATE rather than an upsert, which needs SQLite 3.24 (API 30).
+    @Query("INSERT OR IGNORE INTO conversations (userId, conversationId, otherUserId, lastSenderId, lastMessage, lastTimestamp, unreadCount) "
+        + "VALUES (:userId, :conversationId, :otherUserId, 0, NULL, 0, 0)")
+    void ensureConversation(int userId, long conversationId, int otherUserId);
+
+    // A message older than the current summary still counts as unread but does not replace the preview.
+    @Query("UPDATE conversations SET "
+        + "lastSenderId = CASE WHEN :timestamp >= lastTimestamp THEN :senderId ELSE lastSenderId END, "
+        + "lastMessage = CASE WHEN :timestamp >= lastTimestamp THEN :content ELSE lastMessage END, "
+        + "lastTimestamp = MAX(lastTimestamp, :timestamp), "
+        + "unreadCount = unreadCount + :unreadDelta "
+        + "WHERE userId = :userId AND conversationId = :conversationId")
+    void updateLastMessage(int userId, long conversationId, int senderId, String content, long timestamp, int unreadDelta);
 
-    @Query("SELECT * FROM messages WHERE (senderId = :userId1 AND receiverId = :userId2) OR (senderId = :userId2 AND receiverId = :userId1) ORDER BY timestamp ASC")
-    List<Message> getMessagesBetweenUsers(int userId1, int userId2);
+    @Query("UPDATE conversations SET unreadCount = 0 WHERE userId = :userId AND conversationId = :conversationId AND unreadCount > 0")
+    void markConversationRead(int userId, long conversationId);
 
-    @Query("SELECT * FROM messages WHERE senderId = :userId OR receiverId = :userId ORDER BY timestamp DESC")
-    List<Message> getAllMessagesForUser(int userId);
+    // Inbox for one user, newest conversation first; reads one row per conversation.
+    @Query("SELECT * FROM conversations WHERE userId = :userId ORDER BY lastTimestamp DESC")
+    List<Conversation> getInbox(int userId);
 }
@@ -4,18 +4,52 @@ import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
+import androidx.room.Update;
 
 import com.example.myapplication.database.entity.Movie;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Dao
 public interface MovieDao {
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insertMovie(Movie movie);
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long insertMovieIfAbsent(Movie movie);
 
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insertMovies(List<Movie> movies);
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long[] insertMoviesIfAbsent(List<Movie> movies);
+
+    @Update
+    void updateMovie(Movie movie);
+
+    @Update
+    void updateMovies(List<Movie> movies);
+
+    // Insert-or-update instead of REPLACE. REPLACE deletes the old row without firing the
+    // movies_fts sync triggers (leaving stale tokens) and cascades into likes and favorites.
+    @Transaction
+    default void upsertMovie(Movie movie) {
+        if (insertMovieIfAbsent(movie) == -1) {
+            updateMovie(movie);
+        }
+    }
+
+    @Transaction
+    default void upsertMovies(List<Movie> movies) {
+        long[] rowIds = insertMoviesIfAbsent(movies);
+        List<Movie> existing = new ArrayList<>();
+        for (int i = 0; i < rowIds.length; i++) {
+            if (rowIds[i] == -1) {
+                existing.add(movies.get(i));
+            }
+        }
+        if (!existing.isEmpty()) {
+            updateMovies(existing);
+        }
+    }
 
     @Query("SELECT * FROM movies")
     List<Movie> getAllMovies();
@@ -23,6 +57,30 @@ public interface MovieDao {
     @Query("SELECT * FROM movies WHERE id = :movieId")
     Movie getMovieById(int movieId);
 
-    @Query("SELECT * FROM movies WHERE title LIKE '%' || :query || '%'")
-    List<Movie> searchMovies(String query);
+    @Query("SELECT * FROM movies WHERE id IN (:movieIds)")
+    List<Movie> getMoviesByIds(List<Integer> movieIds);
+
+    // Same rows in the order of movieIds; ids with no cached movie are skipped.
+    default List<Movie> getMoviesInOrder(List<Integer> movieIds) {
+        Map<Integer, Movie> byId = new HashMap<>();
+        for (Movie movie : getMoviesByIds(movieIds)) {
+            byId.put(movie.getId(), movie);
+        }
+        List<Movie> ordered = new ArrayList<>(movieIds.size());
+        for (Integer id : movieIds) {
+            Movie movie = byId.get(id);
+            if (movie != null) {
+                ordered.add(movie);
+            }
+        }
+        return ordered;
+    }
+
+    @Query("SELECT movies.* FROM movies JOIN movies_fts ON movies.id = movies_fts.rowid "
+        + "WHERE movies_fts MATCH :match "
+        + "ORDER BY CASE WHEN movies.id IN "
+        + "(SELECT rowid FROM movies_fts WHERE movies_fts MATCH :titleMatch) THEN 0 ELSE 1 END, "
+        + "movies.voteAverage DESC "
+        + "LIMIT :limit")
+    List<Movie> searchMovies(String match, String titleMatch, int limit);
 }
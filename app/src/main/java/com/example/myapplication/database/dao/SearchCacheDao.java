@@ -0,0 +1,23 @@
+package com.example.myapplication.database.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.example.myapplication.database.entity.SearchCacheEntry;
+
+@Dao
+public interface SearchCacheDao {
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertEntry(SearchCacheEntry entry);
+
+    @Query("SELECT * FROM search_cache WHERE query = :query AND cachedAt >= :minCachedAt")
+    SearchCacheEntry getFreshEntry(String query, long minCachedAt);
+
+    @Query("DELETE FROM search_cache WHERE cachedAt < :minCachedAt")
+    void deleteExpired(long minCachedAt);
+
+    @Query("DELETE FROM search_cache WHERE query NOT IN (SELECT query FROM search_cache ORDER BY cachedAt DESC LIMIT :maxEntries)")
+    void trimTo(int maxEntries);
+}
@@ -6,21 +6,61 @@ import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 
 import com.example.myapplication.database.entity.User;
+import com.example.myapplication.database.model.UserWithFriendship;
+
+import java.util.List;
 
 @Dao
 public interface UserDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     long insertUser(User user);
 
-    @Query("SELECT * FROM users WHERE email = :email AND password = :password")
+    // email is NOCASE, so "Bob@x.com" signs in to "bob@x.com". Installs from before schema 5 may hold
+    // two addresses differing only in case; the oldest matching account wins.
+    @Query("SELECT * FROM users WHERE email = :email AND password = :password ORDER BY id LIMIT 1")
     User login(String email, String password);
 
-    @Query("SELECT * FROM users WHERE email = :email")
+    @Query("SELECT * FROM users WHERE email = :email ORDER BY id LIMIT 1")
     User getUserByEmail(String email);
 
     @Query("SELECT * FROM users WHERE id = :id")
     User getUserById(int id);
 
-    @Query("SELECT * FROM users WHERE id != :currentUserId")
-    java.util.List<User> getAllUsersExcept(int currentUserId);
+    // Keyset page of the user directory ordered by (username, id); pass "" and -1 for the first page.
+    // The cursor is spelled as a plain >= plus a tie-break, because SQLite cannot seek an index on
+    // "a > x OR (a = x AND ...)" and would walk it from the first row on every page.
+    @Query("SELECT users.id, users.username, users.email, friends.id IS NOT NULL AS isFriend "
+        + "FROM users LEFT JOIN friends ON friends.userId = :currentUserId AND friends.friendId = users.id "
+        + "WHERE users.id != :currentUserId "
+        + "AND users.username >= :afterUsername AND (users.username > :afterUsername OR users.id > :afterId) "
+        + "ORDER BY users.username, users.id "
+        + "LIMIT :limit")
+    List<UserWithFriendship> getDirectoryPage(int currentUserId, String afterUsername, int afterId, int limit);
+
+    // Directory search runs as two keyset scans, each a range over its own index: users whose
+    // username starts with the prefix, then users matched only by email. prefixEnd is the prefix
+    // followed by U+FFFF. The cursor is the only lower bound, so the first page passes the prefix
+    // itself and -1; a separate "username >= prefix" would win the plan and pin the seek to the prefix.
+    @Query("SELECT users.id, users.username, users.email, friends.id IS NOT NULL AS isFriend "
+        + "FROM users LEFT JOIN friends ON friends.userId = :currentUserId AND friends.friendId = users.id "
+        + "WHERE users.id != :currentUserId "
+        + "AND users.username >= :afterUsername AND users.username < :prefixEnd "
+        + "AND (users.username > :afterUsername OR users.id > :afterId) "
+        + "ORDER BY users.username, users.id "
+        + "LIMIT :limit")
+    List<UserWithFriendship> searchUsernamePage(int currentUserId, String prefixEnd,
+                                                String afterUsername, int afterId, int limit);
+
+    // index_users_email orders ties by rowid, which is id, so (email, id) pages straight off it.
+    // As above, the first page passes the prefix and -1 as the cursor.
+    @Query("SELECT users.id, users.username, users.email, friends.id IS NOT NULL AS isFriend "
+        + "FROM users LEFT JOIN friends ON friends.userId = :currentUserId AND friends.friendId = users.id "
+        + "WHERE users.id != :currentUserId "
+        + "AND users.email >= :afterEmail AND users.email < :prefixEnd "
+        + "AND (users.username IS NULL OR users.username < :prefix OR users.username >= :prefixEnd) "
+        + "AND (users.email > :afterEmail OR users.id > :afterId) "
+        + "ORDER BY users.email, users.id "
+        + "LIMIT :limit")
+    List<UserWithFriendship> searchEmailPage(int currentUserId, String prefix, String prefixEnd,
+                                             String afterEmail, int afterId, int limit);
 }
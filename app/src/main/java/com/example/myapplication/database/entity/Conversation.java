@@ -0,0 +1,97 @@
+package com.example.myapplication.database.entity;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+// One inbox row per (user, conversation), kept current by MessageDao.insertMessage.
+@Entity(
+    tableName = "conversations",
+    primaryKeys = {"userId", "conversationId"},
+    foreignKeys = {
+        @ForeignKey(
+            entity = User.class,
+            parentColumns = "id",
+            childColumns = "userId",
+            onDelete = ForeignKey.CASCADE
+        ),
+        @ForeignKey(
+            entity = User.class,
+            parentColumns = "id",
+            childColumns = "otherUserId",
+            onDelete = ForeignKey.CASCADE
+        )
+    },
+    indices = {
+        @Index(value = {"userId", "lastTimestamp"}),
+        @Index("otherUserId")
+    }
+)
+public class Conversation {
+    private int userId;
+    private long conversationId;
+    private int otherUserId;
+    private int lastSenderId;
+    private String lastMessage;
+    private long lastTimestamp;
+    private int unreadCount;
+
+    public Conversation() {
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public long getConversationId() {
+        return conversationId;
+    }
+
+    public void setConversationId(long conversationId) {
+        this.conversationId = conversationId;
+    }
+
+    public int getOtherUserId() {
+        return otherUserId;
+    }
+
+    public void setOtherUserId(int otherUserId) {
+        this.otherUserId = otherUserId;
+    }
+
+    public int getLastSenderId() {
+        return lastSenderId;
+    }
+
+    public void setLastSenderId(int lastSenderId) {
+        this.lastSenderId = lastSenderId;
+    }
+
+    public String getLastMessage() {
+        return lastMessage;
+    }
+
+    public void setLastMessage(String lastMessage) {
+        this.lastMessage = lastMessage;
+    }
+
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public void setLastTimestamp(long lastTimestamp) {
+        this.lastTimestamp = lastTimestamp;
+    }
+
+    public int getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(int unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+}
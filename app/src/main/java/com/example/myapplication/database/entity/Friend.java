@@ -21,7 +21,7 @@ import androidx.room.PrimaryKey;
             onDelete = ForeignKey.CASCADE
         )
     },
-    indices = {@Index("userId"), @Index("friendId")}
+    indices = {@Index(value = {"userId", "friendId"}, unique = true), @Index("friendId")}
 )
 public class Friend {
     @PrimaryKey(autoGenerate = true)
@@ -21,7 +21,7 @@ import androidx.room.PrimaryKey;
             onDelete = ForeignKey.CASCADE
         )
     },
-    indices = {@Index("userId"), @Index("movieId")}
+    indices = {@Index(value = {"userId", "movieId"}, unique = true), @Index("movieId")}
 )
 public class Like {
     @PrimaryKey(autoGenerate = true)
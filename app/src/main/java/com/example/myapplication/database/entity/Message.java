@@ -21,13 +21,19 @@ import androidx.room.PrimaryKey;
             onDelete = ForeignKey.CASCADE
         )
     },
-    indices = {@Index("senderId"), @Index("receiverId")}
+    indices = {
+        @Index("senderId"),
+        @Index("receiverId"),
+        @Index(value = {"conversationId", "timestamp", "id"})
+    }
 )
 public class Message {
     @PrimaryKey(autoGenerate = true)
     private int id;
     private int senderId;
     private int receiverId;
+    // Same value for both directions of a conversation, see conversationId(int, int).
+    private long conversationId;
     private String content;
     private long timestamp;
 
@@ -37,10 +43,17 @@ public class Message {
     public Message(int senderId, int receiverId, String content, long timestamp) {
         this.senderId = senderId;
         this.receiverId = receiverId;
+        this.conversationId = conversationId(senderId, receiverId);
         this.content = content;
         this.timestamp = timestamp;
     }
 
+    public static long conversationId(int userId1, int userId2) {
+        int low = Math.min(userId1, userId2);
+        int high = Math.max(userId1, userId2);
+        return ((long) low << 32) | (high & 0xffffffffL);
+    }
+
     public int getId() {
         return id;
     }
@@ -65,6 +78,14 @@ public class Message {
         this.receiverId = receiverId;
     }
 
+    public long getConversationId() {
+        return conversationId;
+    }
+
+    public void setConversationId(long conversationId) {
+        this.conversationId = conversationId;
+    }
+
     public String getContent() {
         return content;
     }
@@ -0,0 +1,29 @@
+package com.example.myapplication.database.entity;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+// External-content index over movies; Room keeps it in sync with triggers.
+@Fts4(contentEntity = Movie.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "movies_fts")
+public class MovieFts {
+    private String title;
+    private String overview;
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getOverview() {
+        return overview;
+    }
+
+    public void setOverview(String overview) {
+        this.overview = overview;
+    }
+}
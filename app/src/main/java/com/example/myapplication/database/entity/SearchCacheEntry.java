@@ -0,0 +1,83 @@
+package com.example.myapplication.database.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+@Entity(
+    tableName = "search_cache",
+    indices = {@Index("cachedAt")}
+)
+public class SearchCacheEntry {
+    @PrimaryKey
+    @NonNull
+    private String query = "";
+    // Comma-separated movie ids in TMDB rank order.
+    private String movieIds;
+    private int page;
+    private int totalPages;
+    private int totalResults;
+    private long cachedAt;
+
+    public SearchCacheEntry() {
+    }
+
+    public SearchCacheEntry(@NonNull String query, String movieIds, int page, int totalPages, int totalResults, long cachedAt) {
+        this.query = query;
+        this.movieIds = movieIds;
+        this.page = page;
+        this.totalPages = totalPages;
+        this.totalResults = totalResults;
+        this.cachedAt = cachedAt;
+    }
+
+    @NonNull
+    public String getQuery() {
+        return query;
+    }
+
+    public void setQuery(@NonNull String query) {
+        this.query = query;
+    }
+
+    public String getMovieIds() {
+        return movieIds;
+    }
+
+    public void setMovieIds(String movieIds) {
+        this.movieIds = movieIds;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    public void setTotalPages(int totalPages) {
+        this.totalPages = totalPages;
+    }
+
+    public int getTotalResults() {
+        return totalResults;
+    }
+
+    public void setTotalResults(int totalResults) {
+        this.totalResults = totalResults;
+    }
+
+    public long getCachedAt() {
+        return cachedAt;
+    }
+
+    public void setCachedAt(long cachedAt) {
+        this.cachedAt = cachedAt;
+    }
+}
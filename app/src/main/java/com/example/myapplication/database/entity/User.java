@@ -1,13 +1,22 @@
 package com.example.myapplication.database.entity;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
-@Entity(tableName = "users")
+@Entity(
+    tableName = "users",
+    indices = {@Index(value = {"username", "id"}), @Index("email")}
+)
 public class User {
     @PrimaryKey(autoGenerate = true)
     private int id;
+    // NOCASE (ASCII only) applies to every comparison on these columns, not just sorting: login
+    // and the duplicate-email check at registration treat "Bob@x.com" and "bob@x.com" as one address.
+    @ColumnInfo(collate = ColumnInfo.NOCASE)
     private String username;
+    @ColumnInfo(collate = ColumnInfo.NOCASE)
     private String email;
     private String password;
 
@@ -0,0 +1,41 @@
+package com.example.myapplication.database.model;
+
+// Directory row for the friends screen: public user columns plus whether the viewer follows them.
+public class UserWithFriendship {
+    private int id;
+    private String username;
+    private String email;
+    private boolean isFriend;
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public boolean isFriend() {
+        return isFriend;
+    }
+
+    public void setFriend(boolean friend) {
+        isFriend = friend;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.myapplication.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class HttpCachePolicyTest {
+    private static final String BODY = "{\"page\":1,\"results\":[]}";
+
+    @Rule
+    public TemporaryFolder cacheDir = new TemporaryFolder();
+
+    private MockWebServer server;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        // No silent retry, so a dropped connection surfaces instead of waiting on an empty queue.
+        client = RetrofitClient.createHttpClient(cacheDir.getRoot(), 1024 * 1024).newBuilder()
+            .retryOnConnectionFailure(false)
+            .build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void freshResponseIsServedFromCache() throws IOException {
+        server.enqueue(new MockResponse().setBody(BODY));
+
+        try (Response first = get()) {
+            assertEquals(BODY, first.body().string());
+            assertEquals("public, max-age=" + HttpCachePolicy.POPULAR_MAX_AGE_SECONDS, first.header("Cache-Control"));
+        }
+        try (Response second = get()) {
+            assertEquals(BODY, second.body().string());
+            assertNotNull(second.cacheResponse());
+            assertNull(second.networkResponse());
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void staleResponseIsRevalidatedWithConditionalGet() throws Exception {
+        server.enqueue(new MockResponse()
+            .setHeader("Cache-Control", "max-age=0")
+            .setHeader("ETag", "\"v1\"")
+            .setBody(BODY));
+        server.enqueue(new MockResponse().setResponseCode(304));
+
+        try (Response first = get()) {
+            assertEquals(BODY, first.body().string());
+        }
+        try (Response second = get()) {
+            assertEquals(200, second.code());
+            assertEquals(BODY, second.body().string());
+            assertNotNull(second.cacheResponse());
+            assertEquals(304, second.networkResponse().code());
+        }
+        server.takeRequest();
+        RecordedRequest revalidation = server.takeRequest();
+        assertEquals("\"v1\"", revalidation.getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void staleResponseIsServedWhenNetworkFails() throws IOException {
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=0").setBody(BODY));
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+
+        try (Response first = get()) {
+            assertEquals(BODY, first.body().string());
+        }
+        try (Response second = get()) {
+            assertEquals(200, second.code());
+            assertEquals(BODY, second.body().string());
+            assertNotNull(second.cacheResponse());
+            assertNull(second.networkResponse());
+        }
+    }
+
+    @Test
+    public void staleResponseIsServedOnServerError() throws IOException {
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=0").setBody(BODY));
+        server.enqueue(new MockResponse().setResponseCode(503));
+
+        try (Response first = get()) {
+            assertEquals(BODY, first.body().string());
+        }
+        try (Response second = get()) {
+            assertEquals(200, second.code());
+            assertEquals(BODY, second.body().string());
+        }
+    }
+
+    @Test
+    public void responseOlderThanMaxStaleIsNotServed() throws IOException {
+        long eightDaysAgo = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(HttpCachePolicy.MAX_STALE_DAYS + 1);
+        server.enqueue(new MockResponse()
+            .setHeader("Date", httpDate(eightDaysAgo))
+            .setHeader("Cache-Control", "max-age=0")
+            .setBody(BODY));
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+
+        try (Response first = get()) {
+            assertEquals(BODY, first.body().string());
+        }
+        try (Response second = get()) {
+            fail("Expected the network failure, got " + second.code());
+        } catch (IOException expected) {
+            // Past max-stale the cache declines and the original failure surfaces.
+        }
+    }
+
+    private Response get() throws IOException {
+        Request request = new Request.Builder().url(server.url("/3/movie/popular?page=1")).build();
+        return client.newCall(request).execute();
+    }
+
+    private static String httpDate(long millis) {
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format.format(new Date(millis));
+    }
+}
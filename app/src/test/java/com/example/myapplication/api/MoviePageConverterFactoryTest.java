@@ -0,0 +1,175 @@
+package com.example.myapplication.api;
+
+import com.example.myapplication.api.model.MoviePage;
+import com.example.myapplication.api.model.MovieResponse;
+import com.example.myapplication.api.model.MovieResult;
+import com.example.myapplication.database.entity.Movie;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MoviePageConverterFactoryTest {
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int MEASURED_ROUNDS = 500;
+
+    private static final Gson GSON = new Gson();
+
+    private static String popularPage;
+
+    @BeforeClass
+    public static void loadFixture() throws IOException {
+        try (InputStream in = MoviePageConverterFactoryTest.class.getClassLoader()
+            .getResourceAsStream("tmdb/popular_page.json")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            popularPage = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void readsPageFieldsAndEveryMovie() throws IOException {
+        MoviePage page = stream(popularPage);
+
+        assertEquals(1, page.getPage());
+        assertEquals(500, page.getTotalPages());
+        assertEquals(10000, page.getTotalResults());
+        assertEquals(20, page.getMovies().size());
+
+        Movie movie = page.getMovies().get(2);
+        assertEquals(2000, movie.getId());
+        assertEquals("The Shawshank Redemption", movie.getTitle());
+        assertEquals("/poster00.jpg", movie.getPosterPath());
+        assertEquals("/backdrop00.jpg", movie.getBackdropPath());
+        assertEquals("1950-01-10", movie.getReleaseDate());
+        assertEquals(8.7, movie.getVoteAverage(), 0.0);
+        assertTrue(movie.getOverview().startsWith("The Shawshank Redemption follows"));
+    }
+
+    @Test
+    public void nullFieldsStayNull() throws IOException {
+        Movie movie = stream(popularPage).getMovies().get(0);
+
+        assertEquals(1001, movie.getId());
+        assertNull(movie.getPosterPath());
+        assertNull(movie.getBackdropPath());
+        assertEquals("", movie.getOverview());
+        assertEquals("", movie.getReleaseDate());
+        assertEquals(0.0, movie.getVoteAverage(), 0.0);
+    }
+
+    @Test
+    public void missingAndUnknownFieldsAreSkipped() throws IOException {
+        Movie movie = stream(popularPage).getMovies().get(1);
+
+        assertEquals(1002, movie.getId());
+        assertEquals("Sparse \"Quoted\" \u2014 Title", movie.getTitle());
+        assertNull(movie.getOverview());
+        assertNull(movie.getPosterPath());
+        assertNull(movie.getBackdropPath());
+        assertNull(movie.getReleaseDate());
+        assertEquals(0.0, movie.getVoteAverage(), 0.0);
+    }
+
+    @Test
+    public void missingOrNullResultsGiveAnEmptyPage() throws IOException {
+        assertTrue(stream("{\"page\":3,\"total_pages\":3}").getMovies().isEmpty());
+        assertTrue(stream("{\"page\":3,\"results\":null}").getMovies().isEmpty());
+    }
+
+    @Test
+    public void matchesTheGsonDtoPath() throws IOException {
+        List<Movie> streamed = stream(popularPage).getMovies();
+        List<Movie> mapped = viaDtos(popularPage);
+
+        assertEquals(mapped.size(), streamed.size());
+        for (int i = 0; i < mapped.size(); i++) {
+            Movie expected = mapped.get(i);
+            Movie actual = streamed.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getTitle(), actual.getTitle());
+            assertEquals(expected.getOverview(), actual.getOverview());
+            assertEquals(expected.getPosterPath(), actual.getPosterPath());
+            assertEquals(expected.getBackdropPath(), actual.getBackdropPath());
+            assertEquals(expected.getReleaseDate(), actual.getReleaseDate());
+            assertEquals(expected.getVoteAverage(), actual.getVoteAverage(), 0.0);
+        }
+    }
+
+    // Rough comparison only: timings are printed, while the assertion is on allocated bytes,
+    // which do not depend on machine load.
+    @Test
+    public void streamingAllocatesLessThanTheGsonDtoPath() throws IOException {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            stream(popularPage);
+            viaDtos(popularPage);
+        }
+
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            stream(popularPage);
+        }
+        long streamNanos = System.nanoTime() - start;
+        long streamBytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+        bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            viaDtos(popularPage);
+        }
+        long dtoNanos = System.nanoTime() - start;
+        long dtoBytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+        System.out.printf("streaming: %d us/page, %d bytes/page; gson dto: %d us/page, %d bytes/page%n",
+            streamNanos / 1000 / MEASURED_ROUNDS, streamBytes / MEASURED_ROUNDS,
+            dtoNanos / 1000 / MEASURED_ROUNDS, dtoBytes / MEASURED_ROUNDS);
+        assertTrue("streaming " + streamBytes + " bytes vs dto " + dtoBytes, streamBytes < dtoBytes);
+    }
+
+    private static MoviePage stream(String json) throws IOException {
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            return MoviePageConverterFactory.readPage(reader);
+        }
+    }
+
+    // What the app did before MoviePageConverterFactory: reflective Gson into the DTOs, then a copy into Movie.
+    private static List<Movie> viaDtos(String json) throws IOException {
+        MovieResponse response;
+        try (StringReader reader = new StringReader(json)) {
+            response = GSON.fromJson(reader, MovieResponse.class);
+        }
+        List<Movie> movies = new ArrayList<>();
+        for (MovieResult result : response.getResults()) {
+            movies.add(new Movie(result.getId(), result.getTitle(), result.getOverview(), result.getPosterPath(),
+                result.getVoteAverage(), result.getReleaseDate(), result.getBackdropPath()));
+        }
+        return movies;
+    }
+}